@@ -0,0 +1,31 @@
+package exceptions;
+
+/**
+ * Exception thrown when a report is rejected because it duplicates a registered report.
+ */
+public class DuplicateReportException extends ReportException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int originalOrdinal;
+
+    /**
+     * Constructor for DuplicateReportException.
+     *
+     * @param message The error message
+     * @param originalOrdinal The position of the registered report in the list of reports
+     */
+    public DuplicateReportException(String message, int originalOrdinal) {
+        super(message);
+        this.originalOrdinal = originalOrdinal;
+    }
+
+    /**
+     * Gets the position of the registered report the rejected one duplicates.
+     *
+     * @return The ordinal of the original report
+     */
+    public int getOriginalOrdinal() {
+        return originalOrdinal;
+    }
+}
\ No newline at end of file
@@ -5,6 +5,8 @@ package exceptions;
  */
 public class InvalidSerialNumberException extends ReportException {
 
+    private static final long serialVersionUID = 1L;
+
   /**
    * Constructor for InvalidSerialNumberException.
    *
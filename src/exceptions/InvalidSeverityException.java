@@ -5,6 +5,8 @@ package exceptions;
  */
 public class InvalidSeverityException extends ReportException {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Constructor for InvalidSeverityException.
      *
@@ -5,6 +5,8 @@ package exceptions;
  */
 public class InvalidVersionFormatException extends ReportException {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Constructor for InvalidVersionFormatException.
      *
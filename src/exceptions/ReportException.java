@@ -5,6 +5,8 @@ package exceptions;
  */
 public class ReportException extends Exception {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Constructor for ReportException.
      *
@@ -0,0 +1,210 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDate;
+
+/**
+ * Exporter for a compact binary columnar format.
+ * The reports are split into row groups of up to {@link #ROWS_PER_GROUP} rows, and inside a
+ * group all the values of a column are stored together in a block with its length, so
+ * analytics jobs can load a single column and skip the blocks of the others without parsing
+ * them. Numbers are big-endian.
+ *
+ * <pre>
+ * file    = "RPTC" version:int columns:int column*columns group* end
+ * column  = nameLength:short name:UTF-8 kind:byte
+ * group   = rows:int block*columns
+ * block   = length:int value*rows
+ * end     = rows:int with the value 0
+ * value   = byte (kind 0) | int (kind 1) | length:int UTF-8 bytes (kind 2, length -1 for null)
+ * </pre>
+ *
+ * The type column is 0 for Hardware and 1 for Software, the severity column holds the
+ * ordinal of the severity (-1 for null) and the date column holds the epoch day
+ * ({@link #NULL_DATE} for null). Columns that do not apply to a report type hold null
+ * strings or zeros.
+ *
+ * <p>The reports are read in a single pass: each one is decoded once and its fields are
+ * appended to a buffer per column, and the blocks of a group are written through the
+ * channel writer as soon as the group is full. Only one group is held in memory, so the
+ * memory used does not grow with the number of reports exported.</p>
+ */
+public class BinaryColumnarReportExporter implements ReportExporter {
+
+    public static final int FORMAT_VERSION = 2;
+    public static final int ROWS_PER_GROUP = 4096;
+    public static final int NULL_DATE = Integer.MIN_VALUE;
+    private static final byte[] MAGIC = {'R', 'P', 'T', 'C'};
+    private static final byte BYTE_COLUMN = 0;
+    private static final byte INT_COLUMN = 1;
+    private static final byte STRING_COLUMN = 2;
+    private static final int COLUMN_COUNT = 11;
+
+    /**
+     * Gets the extension of the binary files.
+     *
+     * @return The "rptc" extension
+     */
+    @Override
+    public String getFileExtension() {
+        return "rptc";
+    }
+
+    /**
+     * Writes the header and then the reports in row groups, filling the columns of each group
+     * in one pass over its reports.
+     *
+     * @param title The title of the export, not written in this format
+     * @param reports The reports to write
+     * @param channel The channel that receives the exported bytes
+     * @throws IOException If an error occurs while writing
+     */
+    @Override
+    public void export(String title, Iterable<Report> reports, WritableByteChannel channel) throws IOException {
+        Column type = new Column("type", BYTE_COLUMN);
+        Column idGadget = new Column("id_gadget", STRING_COLUMN);
+        Column description = new Column("description", STRING_COLUMN);
+        Column severity = new Column("severity", BYTE_COLUMN);
+        Column date = new Column("date", INT_COLUMN);
+        Column componentType = new Column("component_type", STRING_COLUMN);
+        Column serialNumber = new Column("serialNumber", INT_COLUMN);
+        Column hasToReplace = new Column("hasToReplace", BYTE_COLUMN);
+        Column systemOperation = new Column("systemOperation", STRING_COLUMN);
+        Column softwareName = new Column("softwareName", STRING_COLUMN);
+        Column version = new Column("version", STRING_COLUMN);
+        Column[] columns = {type, idGadget, description, severity, date, componentType, serialNumber,
+                hasToReplace, systemOperation, softwareName, version};
+
+        BufferedChannelWriter writer = new BufferedChannelWriter(channel);
+        writer.reserve(12).put(MAGIC).putInt(FORMAT_VERSION).putInt(COLUMN_COUNT);
+        for (Column column : columns) {
+            startColumn(writer, column.name, column.kind);
+        }
+
+        int rows = 0;
+        for (Report report : reports) {
+            Hardware hardware = report instanceof Hardware ? (Hardware) report : null;
+            Software software = report instanceof Software ? (Software) report : null;
+            LocalDate reportDate = report.getDate_report();
+
+            type.reserve(1).put((byte) (hardware != null ? 0 : 1));
+            idGadget.putString(report.getId_gadget());
+            description.putString(report.getDescription());
+            severity.reserve(1).put((byte) (report.getSeverityType() == null ? -1 : report.getSeverityType().ordinal()));
+            date.reserve(4).putInt(reportDate == null ? NULL_DATE : (int) reportDate.toEpochDay());
+            componentType.putString(hardware != null ? hardware.getComponent_type() : null);
+            serialNumber.reserve(4).putInt(hardware != null ? hardware.getSerialNumber() : 0);
+            hasToReplace.reserve(1).put((byte) (hardware != null && hardware.isHasToReplace() ? 1 : 0));
+            systemOperation.putString(software != null ? software.getSystemOperation() : null);
+            softwareName.putString(software != null ? software.getSoftwareName() : null);
+            version.putString(software != null ? software.getVersion() : null);
+            if (++rows == ROWS_PER_GROUP) {
+                writeGroup(writer, columns, rows);
+                rows = 0;
+            }
+        }
+        if (rows > 0) {
+            writeGroup(writer, columns, rows);
+        }
+        writer.reserve(4).putInt(0);
+        writer.flush();
+    }
+
+    /**
+     * Writes a row group: its number of rows and the block of every column, emptying the columns.
+     *
+     * @param writer The writer that receives the bytes
+     * @param columns The columns with the values of the group
+     * @param rows The number of rows of the group
+     * @throws IOException If an error occurs while writing
+     */
+    private static void writeGroup(BufferedChannelWriter writer, Column[] columns, int rows) throws IOException {
+        writer.reserve(4).putInt(rows);
+        for (Column column : columns) {
+            writer.reserve(4).putInt(column.values.position());
+            column.writeTo(writer);
+        }
+    }
+
+    /**
+     * Writes the name and kind of a column.
+     *
+     * @param writer The writer that receives the bytes
+     * @param name The name of the column, in ASCII
+     * @param kind The kind of the values of the column
+     * @throws IOException If an error occurs while writing
+     */
+    private static void startColumn(BufferedChannelWriter writer, String name, byte kind) throws IOException {
+        ByteBuffer buffer = writer.reserve(3 + name.length());
+        buffer.putShort((short) name.length());
+        Utf8.put(buffer, name);
+        buffer.put(kind);
+    }
+
+    /**
+     * Values of one column for the current row group, buffered until the group is written.
+     */
+    private static final class Column {
+        private final String name;
+        private final byte kind;
+        private ByteBuffer values = ByteBuffer.allocate(4096);
+
+        private Column(String name, byte kind) {
+            this.name = name;
+            this.kind = kind;
+        }
+
+        /**
+         * Gets the buffer of the column with room for a number of bytes, growing it if needed.
+         *
+         * @param bytes The number of bytes that will be written
+         * @return The buffer to write into
+         */
+        private ByteBuffer reserve(int bytes) {
+            if (values.remaining() < bytes) {
+                int capacity = Math.max(values.capacity() * 2, values.position() + bytes);
+                ByteBuffer grown = ByteBuffer.allocate(capacity);
+                values.flip();
+                grown.put(values);
+                values = grown;
+            }
+            return values;
+        }
+
+        /**
+         * Appends a length-prefixed UTF-8 string.
+         *
+         * @param value The string to append, may be null
+         */
+        private void putString(String value) {
+            if (value == null) {
+                reserve(4).putInt(-1);
+                return;
+            }
+
+            ByteBuffer buffer = reserve(4 + Utf8.maxBytes(value));
+            int lengthPosition = buffer.position();
+            buffer.putInt(0);
+            Utf8.put(buffer, value);
+            buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+        }
+
+        /**
+         * Writes the buffered values through a writer, in pieces no larger than its buffer.
+         *
+         * @param writer The writer that receives the bytes
+         * @throws IOException If an error occurs while writing
+         */
+        private void writeTo(BufferedChannelWriter writer) throws IOException {
+            values.flip();
+            while (values.hasRemaining()) {
+                int length = Math.min(values.remaining(), BufferedChannelWriter.DEFAULT_BUFFER_SIZE);
+                writer.reserve(length).put(values.slice(values.position(), length));
+                values.position(values.position() + length);
+            }
+            values.clear();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Buffered writer over an NIO channel used by the report exporters.
+ * Bytes are encoded into a direct buffer that is written to the channel only when the
+ * next record may not fit, so each record costs no system call of its own.
+ */
+class BufferedChannelWriter {
+
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    // Temporary buffer for a single write larger than the main buffer
+    private ByteBuffer oversized;
+
+    /**
+     * Constructor for the BufferedChannelWriter class.
+     *
+     * @param channel The channel that receives the bytes
+     */
+    BufferedChannelWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Gets a buffer with room for a number of bytes, flushing the pending bytes if needed.
+     * When the bytes do not fit even in an empty buffer, a larger temporary buffer is
+     * returned and it is written on the next call to this method or to {@link #flush()}.
+     *
+     * @param bytes The number of bytes that will be written
+     * @return The buffer to write into
+     * @throws IOException If an error occurs while writing to the channel
+     */
+    ByteBuffer reserve(int bytes) throws IOException {
+        if (oversized != null) {
+            drain(oversized);
+            oversized = null;
+        }
+        if (buffer.remaining() < bytes) {
+            drain(buffer);
+        }
+        if (buffer.remaining() < bytes) {
+            oversized = ByteBuffer.allocate(bytes);
+            return oversized;
+        }
+        return buffer;
+    }
+
+    /**
+     * Writes every pending byte to the channel.
+     *
+     * @throws IOException If an error occurs while writing to the channel
+     */
+    void flush() throws IOException {
+        drain(buffer);
+        if (oversized != null) {
+            // The main buffer is always empty while a temporary buffer is pending
+            drain(oversized);
+            oversized = null;
+        }
+    }
+
+    /**
+     * Writes the content of a buffer to the channel and clears the buffer.
+     *
+     * @param pending The buffer with the bytes to write, in write mode
+     * @throws IOException If an error occurs while writing to the channel
+     */
+    private void drain(ByteBuffer pending) throws IOException {
+        pending.flip();
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+        pending.clear();
+    }
+}
@@ -1,5 +1,9 @@
 package model;
 
+import exceptions.DuplicateReportException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -7,66 +11,581 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 /**
  * Controller class that manages the operations related to reports.
  * This class implements the main business logic of the application.
+ * It keeps in-memory indexes by equipment ID, severity and date, and it is safe
+ * to use from several threads at once: queries share a read lock and
+ * registrations take the write lock. Query results are kept in a bounded
+ * {@link QueryCache} that each new report invalidates only where it matches.
+ * Report counts per equipment and per component are also kept up to date on every
+ * registration to answer Top-K queries without sorting every report.
+ * Escalation rules are evaluated on each new report as it is registered, and each
+ * equipment keeps a date-sorted timeline with a summary of its reports. New reports that
+ * duplicate a registered one are rejected, merged or flagged, see {@link DuplicatePolicy}.
+ * Every added, updated or removed report is published as a numbered
+ * {@link ReportEvent} through {@link #getEventPublisher()}.
+ * New reports are appended to the data file one record at a time, and the file is only
+ * written again in full when a report is updated or removed. The index, sketch and escalation
+ * files are saved every so often instead of on every registration; on load, the reports
+ * appended after they were saved are added to them.
  */
-public class Controller implements Serializable {
+public class Controller implements Serializable, AutoCloseable {
 
     private static final long serialVersionUID = 1L;
     private static final String DATA_FILE = "data/databaseReports.dat";
+    private static final String BACKUP_SUFFIX = ".bak";
     private static final String REPORTS_FOLDER = "reports/";
+    private static final String SKETCHES_FILE = "data/databaseReports.sketches";
+    private static final String ESCALATIONS_FILE = "data/databaseReports.escalations";
+    private static final String INDEX_FILE = "data/databaseReports.idx";
+    private static final String EXPORT_MARKS_FILE = "data/exportMarks.properties";
+
+    // Minimum number of reports appended before the index, sketch and escalation files are saved again
+    private static final int MIN_CHECKPOINT_REPORTS = 4096;
+
+    // Settings the controller is created with; they are the whole serialized form
+    private final String baseDirectory;
+    private final boolean offHeap;
+
+    // Paths of the files of this controller, relative to its base directory
+    private final String dataFile;
+    private final String reportsFolder;
+    private final String sketchesFile;
+    private final String escalationsFile;
+    private final String indexFile;
+    private final String exportMarksFile;
 
     // List to store reports
-    private List<Report> listReports;
+    private transient List<Report> listReports;
+
+    // Data file with one record per report, appended to as reports are registered
+    private final transient ReportDataFile data;
+
+    // Random stamp of the data file, changed each time it is written in full, 0 if the file has none
+    private transient long snapshotStamp;
+
+    // Number of reports already in the data file, or -1 if it must be written in full
+    private transient int persistedCount;
+
+    // Serializes the writes of the data file and the files saved next to it; taken before the lock
+    private final transient Object persistLock = new Object();
+
+    // Number of first reports covered by the saved index, sketch and escalation files
+    private transient int checkpointCount;
+
+    // Indexes holding the ordinals of the reports inside listReports
+    private transient Map<String, OrdinalList> indexById;
+    private transient Map<Severity, OrdinalList> indexBySeverity;
+    private transient NavigableMap<LocalDate, OrdinalList> indexByDate;
+
+    // Report counts per equipment ID, by quarter and severity, and per component to replace
+    private transient Map<String, Map<Severity, TopKCounter>> equipmentCountsByQuarter;
+    private transient TopKCounter componentsToReplace;
+
+    // Reports of each equipment sorted by date, built on first use from indexById
+    private final transient Map<String, EquipmentTimeline> timelines = new ConcurrentHashMap<>();
+
+    // Distinct equipment estimates per severity, month and type, saved next to the data
+    private transient ReportSketches sketches;
+
+    // Results of repeated queries, invalidated by matching new reports
+    private final transient QueryCache queryCache = new QueryCache(QueryCache.DEFAULT_CAPACITY);
+
+    // Fingerprints of the registered reports, checked before each new report is added
+    private final transient DuplicateDetector duplicates = new DuplicateDetector(DuplicateDetector.DEFAULT_MAX_DISTANCE);
+    private transient volatile DuplicatePolicy duplicatePolicy = DuplicatePolicy.FLAG;
+    private transient int mergedDuplicates;
+
+    // Ordinals of the flagged duplicate reports and of the registered reports they duplicate
+    private transient OrdinalList flaggedReports = new OrdinalList();
+    private transient OrdinalList flaggedOriginals = new OrdinalList();
+
+    // Escalation rules evaluated on every new report, with the alerts they raised
+    private transient EscalationEngine escalations;
+
+    // Ordered stream of the changes of the list of reports
+    private final transient ReportEventPublisher events;
+
+    // Number of reports already written by the last incremental export of each type
+    private final transient Properties exportMarks = new Properties();
+
+    // Guards the list of reports and every index built from it
+    private final transient ReadWriteLock lock = new ReentrantReadWriteLock();
 
     /**
      * Constructor for the Controller class.
      * Initializes the list of reports and loads any existing data from the database file.
      */
     public Controller() {
-        listReports = new ArrayList<>();
-        loadData();
+        this("");
+    }
+
+    /**
+     * Constructor for a Controller that keeps its data and report files under a base directory.
+     * Initializes the list of reports and loads any existing data from the database file.
+     *
+     * @param baseDirectory The directory that holds the data and reports folders,
+     *                      or an empty string for the working directory
+     */
+    public Controller(String baseDirectory) {
+        this(baseDirectory, false);
+    }
+
+    /**
+     * Constructor for a Controller that can keep its reports outside the Java heap.
+     * With off-heap storage the reports live in an {@link OffHeapReportStore}, and the
+     * search methods and {@link #getListReports()} return reports decoded from it.
+     * The indexes, duplicate fingerprints and escalation state stay on the heap and grow
+     * with the number of reports, as described in {@link OffHeapReportStore}.
+     *
+     * @param baseDirectory The directory that holds the data and reports folders,
+     *                      or an empty string for the working directory
+     * @param offHeap True to store the reports outside the Java heap
+     */
+    public Controller(String baseDirectory, boolean offHeap) {
+        this.baseDirectory = baseDirectory;
+        this.offHeap = offHeap;
+        Path base = Path.of(baseDirectory);
+        dataFile = base.resolve(DATA_FILE).toString();
+        reportsFolder = base.resolve(REPORTS_FOLDER).toString() + File.separator;
+        sketchesFile = base.resolve(SKETCHES_FILE).toString();
+        escalationsFile = base.resolve(ESCALATIONS_FILE).toString();
+        indexFile = base.resolve(INDEX_FILE).toString();
+        exportMarksFile = base.resolve(EXPORT_MARKS_FILE).toString();
+
+        listReports = offHeap ? new OffHeapReportStore() : new ArrayList<>();
+        data = new ReportDataFile(Path.of(dataFile));
+        boolean convert = loadData();
+        loadExportMarks();
+
+        // The event sequence goes on from the last event of the saved data
+        events = new ReportEventPublisher(ReportEventPublisher.DEFAULT_RETENTION, data.nextSequence(listReports.size()));
+
+        // Indexes, sketches and escalation state saved with the same data file are reused,
+        // and only the reports appended after they were saved are added to them
+        int indexed = loadIndexes();
+        int sketched = loadSketches();
+        int escalated = loadEscalations();
+        int replayFrom = Math.min(indexed, Math.min(sketched, escalated));
+        for (int i = replayFrom; i < listReports.size(); i++) {
+            Report report = listReports.get(i);
+            if (i >= indexed) {
+                indexReport(report, i);
+                addFingerprints(report, i);
+            }
+            if (i >= sketched) {
+                sketches.add(report);
+            }
+            if (i >= escalated) {
+                escalations.evaluate(report, i);
+            }
+        }
+        checkpointCount = replayFrom;
+
+        // A missing or serialized data file is written in the record format right away,
+        // keeping the serialized file as a backup that older versions can still read
+        if (convert) {
+            synchronized (persistLock) {
+                backupSerializedData();
+                saveData();
+            }
+        }
     }
 
     /**
      * Adds a new report to the list and saves the data.
+     * A report that duplicates a registered one is handled by the duplicate policy: with MERGE
+     * it is not added, and with FLAG it is added and flagged. Either way the match is returned,
+     * so the caller can tell which registered report it duplicates.
      *
      * @param report The report to be added
+     * @return Null if the report was added as a new report, or the match with the registered report
+     * it duplicates, telling whether it was merged or added and flagged
+     * @throws DuplicateReportException If the report is a duplicate and the policy is REJECT
      */
-    public void addReport(Report report) {
-        listReports.add(report);
-        saveData();
+    public DuplicateMatch addReport(Report report) throws DuplicateReportException {
+        DuplicateMatch match = addReportWithoutSaving(report);
+        if (match == null || match.isAdded()) {
+            saveReports();
+        }
+        return match;
+    }
+
+    /**
+     * Adds a new report to the list and indexes without saving the data.
+     * Used by the ingestion pipeline, which persists in batches with {@link #saveReports()}.
+     *
+     * @param report The report to be added
+     * @return Null if the report was added as a new report, or the match with the registered report it duplicates
+     * @throws DuplicateReportException If the report is a duplicate and the policy is REJECT
+     */
+    DuplicateMatch addReportWithoutSaving(Report report) throws DuplicateReportException {
+        lock.writeLock().lock();
+        try {
+            return appendReport(report);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces a registered report with a new version and saves the data.
+     *
+     * @param existing The registered report to replace
+     * @param replacement The new version of the report
+     * @return True if the report was replaced, false if it is not registered
+     */
+    public boolean updateReport(Report existing, Report replacement) {
+        synchronized (persistLock) {
+            lock.writeLock().lock();
+            try {
+                int ordinal = ordinalOf(existing);
+                if (ordinal < 0) {
+                    return false;
+                }
+
+                Report previous = listReports.get(ordinal);
+                listReports.set(ordinal, replacement);
+                duplicates.set(ordinal, DuplicateDetector.fingerprints(replacement));
+                escalations.replace(previous, replacement, ordinal);
+                rebuildIndexes();
+                rebuildSketches();
+                reindexDuplicates();
+                compactReports();
+                // Published first, so the data file saves the sequence number that follows it
+                events.publish(ReportEventType.UPDATED, ordinal, replacement);
+                saveData();
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes a registered report and saves the data.
+     * The reports after it move one position back, and so do the incremental export marks.
+     *
+     * @param report The registered report to remove
+     * @return True if the report was removed, false if it is not registered
+     */
+    public boolean removeReport(Report report) {
+        return removeReportOrdinal(report) >= 0;
+    }
+
+    /**
+     * Checks whether a report is registered, by identity or, with off-heap storage, by content.
+     *
+     * @param report The report to look for
+     * @return True if the report is registered
+     */
+    boolean isRegistered(Report report) {
+        lock.readLock().lock();
+        try {
+            return ordinalOf(report) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a registered report, saves the data and gives the position the report had.
+     *
+     * @param report The registered report to remove
+     * @return The position of the removed report in the list of reports, or -1 if it is not registered
+     */
+    int removeReportOrdinal(Report report) {
+        synchronized (exportMarks) {
+            synchronized (persistLock) {
+                lock.writeLock().lock();
+                try {
+                    int ordinal = ordinalOf(report);
+                    if (ordinal < 0) {
+                        return -1;
+                    }
+
+                    Report removed = listReports.remove(ordinal);
+                    duplicates.remove(ordinal);
+                    escalations.remove(removed, ordinal);
+                    for (String type : exportMarks.stringPropertyNames()) {
+                        int mark = Integer.parseInt(exportMarks.getProperty(type));
+                        if (mark > ordinal) {
+                            exportMarks.setProperty(type, String.valueOf(mark - 1));
+                        }
+                    }
+                    saveExportMarks();
+
+                    rebuildIndexes();
+                    rebuildSketches();
+                    reindexDuplicates();
+                    compactReports();
+                    events.publish(ReportEventType.REMOVED, ordinal, report);
+                    saveData();
+                    return ordinal;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the alerts raised by the escalation rules, such as 3 or more MEDIO reports
+     * on the same equipment within 7 days or a component flagged for replacement twice or more.
+     *
+     * @return A list of the alerts, from the oldest to the newest
+     */
+    public List<EscalationAlert> getEscalationAlerts() {
+        lock.readLock().lock();
+        try {
+            return escalations.getAlerts(listReports);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sets what to do with new reports that duplicate a registered one: the same equipment ID,
+     * type, date and severity with the same or a near-identical description. The default is FLAG,
+     * which adds every report as before and only flags the pair; REJECT and MERGE must be chosen explicitly.
+     *
+     * @param duplicatePolicy The policy for duplicate reports
+     */
+    public void setDuplicatePolicy(DuplicatePolicy duplicatePolicy) {
+        this.duplicatePolicy = duplicatePolicy;
+    }
+
+    /**
+     * Gets what is done with new reports that duplicate a registered one.
+     *
+     * @return The policy for duplicate reports
+     */
+    public DuplicatePolicy getDuplicatePolicy() {
+        return duplicatePolicy;
+    }
+
+    /**
+     * Gets the duplicate reports that were added and flagged, including the
+     * duplicates found among the reports loaded from the data file.
+     *
+     * @return A list of the flagged duplicates, in registration order
+     */
+    public List<DuplicateMatch> getFlaggedDuplicates() {
+        lock.readLock().lock();
+        try {
+            List<DuplicateMatch> matches = new ArrayList<>(flaggedReports.size());
+            for (int i = 0; i < flaggedReports.size(); i++) {
+                int ordinal = flaggedReports.get(i);
+                int original = flaggedOriginals.get(i);
+                matches.add(new DuplicateMatch(listReports.get(ordinal), listReports.get(original), original,
+                        duplicates.isExactPair(ordinal, original), DuplicatePolicy.FLAG));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of duplicate reports merged into a registered one by the MERGE policy,
+     * which were not added to the list of reports.
+     *
+     * @return The number of merged duplicates
+     */
+    public int getMergedDuplicateCount() {
+        lock.readLock().lock();
+        try {
+            return mergedDuplicates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the publisher of the report events of this controller.
+     * Subscribers receive every report added, updated or removed from then on, or can
+     * resume from the sequence number of a recent event.
+     *
+     * @return The publisher of the report events
+     */
+    public ReportEventPublisher getEventPublisher() {
+        return events;
+    }
+
+    /**
+     * Saves any pending report and the indexes, sketches and escalation state of every report,
+     * so the next start does not have to add any of them again, and stops the delivery of report
+     * events, completing every event subscriber.
+     */
+    @Override
+    public void close() {
+        saveReports();
+        synchronized (persistLock) {
+            if (persistedCount >= 0 && checkpointCount != persistedCount) {
+                checkpoint();
+            }
+        }
+        events.close();
+    }
+
+    /**
+     * Appends the reports registered since the last save to the database file, and saves
+     * the indexes and sketches when enough reports were appended since they were last saved.
+     */
+    void saveReports() {
+        synchronized (persistLock) {
+            if (persistedCount < 0) {
+                lock.readLock().lock();
+                try {
+                    saveData();
+                } finally {
+                    lock.readLock().unlock();
+                }
+                return;
+            }
+
+            if (appendRecords()) {
+                checkpointIfDue();
+            }
+        }
+    }
+
+    /**
+     * Appends the reports registered since the last save to the database file.
+     * The records are encoded under the read lock a piece at a time and written after
+     * releasing it, so registrations and queries do not wait for the disk.
+     * Must be called holding the persist lock.
+     *
+     * @return True if every report is in the data file, false if writing failed
+     */
+    private boolean appendRecords() {
+        try {
+            while (true) {
+                int encoded;
+                lock.readLock().lock();
+                try {
+                    encoded = data.encode(listReports, persistedCount, listReports.size());
+                } finally {
+                    lock.readLock().unlock();
+                }
+                if (encoded == 0) {
+                    break;
+                }
+                data.appendPending();
+                persistedCount += encoded;
+            }
+        } catch (IOException e) {
+            // The file may end with part of a record, so the next save writes it in full
+            persistedCount = -1;
+            System.err.println("Error saving data: " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Saves the indexes, sketches and escalation state if enough reports were appended since
+     * they were last saved: at least {@link #MIN_CHECKPOINT_REPORTS} and a quarter of the reports
+     * they cover, so the cost of writing them grows with the reports added and not with every
+     * registration.
+     * Must be called holding the persist lock.
+     */
+    private void checkpointIfDue() {
+        if (persistedCount - checkpointCount >= Math.max(MIN_CHECKPOINT_REPORTS, checkpointCount / 4)) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Saves the indexes, sketches and escalation state of every registered report, stamped with
+     * the stamp of the data file. They are encoded in memory under the read lock and written after releasing it,
+     * once every report they cover is in the data file. Must be called holding the persist lock.
+     */
+    private void checkpoint() {
+        try {
+            int count;
+            byte[] indexBytes;
+            byte[] sketchBytes;
+            byte[] escalationBytes;
+            lock.readLock().lock();
+            try {
+                count = listReports.size();
+                indexBytes = encodeIndexes(count);
+                sketchBytes = encodeState(sketches, count);
+                escalationBytes = encodeState(escalations, count);
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            if (!appendRecords()) {
+                return;
+            }
+            writeSideFile(indexFile, indexBytes);
+            writeSideFile(sketchesFile, sketchBytes);
+            writeSideFile(escalationsFile, escalationBytes);
+            checkpointCount = count;
+
+        } catch (IOException e) {
+            System.err.println("Error saving indexes: " + e.getMessage());
+        }
     }
 
     /**
      * Searches for reports by their equipment ID.
      *
      * @param idGadget The ID of the equipment to search for
-     * @return A list of reports with the specified equipment ID
+     * @return An unmodifiable list of reports with the specified equipment ID
      */
     public List<Report> searchReportsByid(String idGadget) {
-        List<Report> results = new ArrayList<>();
-        for (Report report : listReports) {
-            if (report.getId_gadget().equals(idGadget)) {
-                results.add(report);
-            }
-        }
-        return results;
+        return cachedQuery(QueryCache.Kind.ID, idGadget, () -> toArray(indexById.get(idGadget)), null);
     }
 
     /**
      * Searches for reports by their severity type.
      *
      * @param severityType The severity type to search for
-     * @return A list of reports with the specified severity type
+     * @return An unmodifiable list of reports with the specified severity type
      */
     public List<Report> searchBySeverityType(int severityType) {
+        return searchBySeverityType(severityType, null);
+    }
+
+    /**
+     * Searches for reports by their severity type and gives the position of each one.
+     *
+     * @param severityType The severity type to search for
+     * @param positions The list that receives the position of each report found, or null
+     * @return An unmodifiable list of reports with the specified severity type, in registration order
+     */
+    List<Report> searchBySeverityType(int severityType, OrdinalList positions) {
         Severity severity;
         switch (severityType) {
             case 1:
@@ -82,29 +601,44 @@ public class Controller implements Serializable {
                 return new ArrayList<>();
         }
 
-        List<Report> results = new ArrayList<>();
-        for (Report report : listReports) {
-            if (report.getSeverityType() == severity) {
-                results.add(report);
-            }
-        }
-        return results;
+        return cachedQuery(QueryCache.Kind.SEVERITY, severity, () -> toArray(indexBySeverity.get(severity)), positions);
     }
 
     /**
      * Searches for reports created since a specific date.
      *
      * @param date The date from which to search for reports
-     * @return A list of reports created on or after the specified date
+     * @return An unmodifiable list of reports created on or after the specified date
      */
     public List<Report> searchSinceDeterminateDate(LocalDate date) {
-        List<Report> results = new ArrayList<>();
-        for (Report report : listReports) {
-            if (report.getDate_report().isEqual(date) || report.getDate_report().isAfter(date)) {
-                results.add(report);
+        return searchSinceDeterminateDate(date, null);
+    }
+
+    /**
+     * Searches for reports created since a specific date and gives the position of each one.
+     *
+     * @param date The date from which to search for reports
+     * @param positions The list that receives the position of each report found, or null
+     * @return An unmodifiable list of reports created on or after the specified date, in registration order
+     */
+    List<Report> searchSinceDeterminateDate(LocalDate date, OrdinalList positions) {
+        return cachedQuery(QueryCache.Kind.SINCE, date, () -> {
+            int total = 0;
+            for (OrdinalList ordinals : indexByDate.tailMap(date, true).values()) {
+                total += ordinals.size();
             }
-        }
-        return results;
+
+            // Merge the ordinals of every matching day and sort them to keep registration order
+            int[] merged = new int[total];
+            int position = 0;
+            for (OrdinalList ordinals : indexByDate.tailMap(date, true).values()) {
+                for (int i = 0; i < ordinals.size(); i++) {
+                    merged[position++] = ordinals.get(i);
+                }
+            }
+            Arrays.sort(merged);
+            return merged;
+        }, positions);
     }
 
     /**
@@ -113,33 +647,86 @@ public class Controller implements Serializable {
      * @return A list of equipment IDs
      */
     public List<String> getEquipmentIds() {
-        List<String> ids = new ArrayList<>();
-        for (Report report : listReports) {
-            String id = report.getId_gadget();
-            if (!ids.contains(id)) {
-                ids.add(id);
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(indexById.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the summary of every equipment, in the order their first report was registered.
+     * Summaries are kept up to date as reports arrive, so this takes time proportional
+     * to the number of equipment, not to the number of reports.
+     *
+     * @return A list with the summary of each equipment
+     */
+    public List<EquipmentSummary> getEquipmentSummaries() {
+        lock.readLock().lock();
+        try {
+            List<EquipmentSummary> summaries = new ArrayList<>(indexById.size());
+            for (String idGadget : indexById.keySet()) {
+                summaries.add(timelineOf(idGadget).summary());
             }
+            return summaries;
+        } finally {
+            lock.readLock().unlock();
         }
-        return ids;
     }
 
     /**
-     * Gets the earliest date from all reports.
+     * Gets the summary of an equipment.
      *
-     * @return The earliest date of any report, or null if no reports exist
+     * @param idGadget The ID of the equipment
+     * @return The summary of the equipment, or null if it has no reports
      */
-    public LocalDate getEarliestDate() {
-        if (listReports.isEmpty()) {
-            return null;
+    public EquipmentSummary getEquipmentSummary(String idGadget) {
+        lock.readLock().lock();
+        try {
+            return indexById.containsKey(idGadget) ? timelineOf(idGadget).summary() : null;
+        } finally {
+            lock.readLock().unlock();
         }
+    }
 
-        LocalDate earliest = listReports.get(0).getDate_report();
-        for (Report report : listReports) {
-            if (report.getDate_report().isBefore(earliest)) {
-                earliest = report.getDate_report();
+    /**
+     * Gets the reports of an equipment sorted by date.
+     * Reports with the same date keep their registration order.
+     *
+     * @param idGadget The ID of the equipment
+     * @return A list of the reports of the equipment, from the earliest to the latest
+     */
+    public List<Report> getEquipmentHistory(String idGadget) {
+        lock.readLock().lock();
+        try {
+            if (!indexById.containsKey(idGadget)) {
+                return new ArrayList<>();
+            }
+
+            EquipmentTimeline timeline = timelineOf(idGadget);
+            List<Report> history = new ArrayList<>(timeline.size());
+            for (int i = 0; i < timeline.size(); i++) {
+                history.add(listReports.get(timeline.ordinalAt(i)));
             }
+            return history;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the earliest date from all reports.
+     *
+     * @return The earliest date of any report, or null if no reports exist
+     */
+    public LocalDate getEarliestDate() {
+        lock.readLock().lock();
+        try {
+            return indexByDate.isEmpty() ? null : indexByDate.firstKey();
+        } finally {
+            lock.readLock().unlock();
         }
-        return earliest;
     }
 
     /**
@@ -148,26 +735,139 @@ public class Controller implements Serializable {
      * @return The latest date of any report, or null if no reports exist
      */
     public LocalDate getLatestDate() {
-        if (listReports.isEmpty()) {
-            return null;
+        lock.readLock().lock();
+        try {
+            return indexByDate.isEmpty() ? null : indexByDate.lastKey();
+        } finally {
+            lock.readLock().unlock();
         }
+    }
 
-        LocalDate latest = listReports.get(0).getDate_report();
-        for (Report report : listReports) {
-            if (report.getDate_report().isAfter(latest)) {
-                latest = report.getDate_report();
+    /**
+     * Gets the equipment IDs with the most reports of a severity level in a quarter.
+     *
+     * @param severity The severity level to count
+     * @param year The year of the quarter
+     * @param quarter The quarter of the year, from 1 to 4
+     * @param k The maximum number of equipment IDs to return
+     * @return The equipment IDs with their report counts, from the most to the least reported
+     */
+    public List<Map.Entry<String, Integer>> getTopEquipment(Severity severity, int year, int quarter, int k) {
+        lock.readLock().lock();
+        try {
+            Map<Severity, TopKCounter> bySeverity = equipmentCountsByQuarter.get(quarterKey(year, quarter));
+            if (bySeverity == null || !bySeverity.containsKey(severity)) {
+                return new ArrayList<>();
             }
+            return bySeverity.get(severity).top(k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the hardware component types most often flagged as needing replacement.
+     *
+     * @param k The maximum number of component types to return
+     * @return The component types with their counts, from the most to the least flagged
+     */
+    public List<Map.Entry<String, Integer>> getTopComponentsToReplace(int k) {
+        lock.readLock().lock();
+        try {
+            return componentsToReplace.top(k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the exact number of distinct equipment IDs without building the list of IDs.
+     *
+     * @return The number of distinct equipment IDs
+     */
+    public int getEquipmentCount() {
+        lock.readLock().lock();
+        try {
+            return indexById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates how many distinct equipment IDs have reports of a severity level.
+     *
+     * @param severity The severity level
+     * @return The estimated number of distinct equipment IDs
+     */
+    public long estimateDistinctEquipment(Severity severity) {
+        lock.readLock().lock();
+        try {
+            return sketches.estimateBySeverity(severity);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates how many distinct equipment IDs have reports in a range of months.
+     *
+     * @param from The first month of the range
+     * @param to The last month of the range, inclusive
+     * @return The estimated number of distinct equipment IDs
+     */
+    public long estimateDistinctEquipment(YearMonth from, YearMonth to) {
+        lock.readLock().lock();
+        try {
+            return sketches.estimateByMonths(from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates how many distinct equipment IDs have reports of a type.
+     *
+     * @param type The type of report ("Hardware" or "Software")
+     * @return The estimated number of distinct equipment IDs
+     */
+    public long estimateDistinctEquipmentByType(String type) {
+        lock.readLock().lock();
+        try {
+            return sketches.estimateByType(type);
+        } finally {
+            lock.readLock().unlock();
         }
-        return latest;
     }
 
     /**
      * Gets the list of all reports.
+     * The list is a copy taken under the read lock, so later registrations do not change it.
+     * With off-heap storage every report is decoded; use {@link #getReportCount()} to only count them.
      *
-     * @return The list of all reports
+     * @return An unmodifiable list of all reports, in registration order
      */
     public List<Report> getListReports() {
-        return listReports;
+        lock.readLock().lock();
+        try {
+            return Collections.unmodifiableList(new ArrayList<>(listReports));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of registered reports without copying them.
+     *
+     * @return The number of reports
+     */
+    public int getReportCount() {
+        lock.readLock().lock();
+        try {
+            return listReports.size();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -177,93 +877,774 @@ public class Controller implements Serializable {
      * @throws IOException If an error occurs while writing the file
      */
     public String generateHardwareReport() throws IOException {
-        return generateReport("Hardware");
+        return generateReport("Hardware", new TextReportExporter());
     }
 
     /**
-     * Generates a report file with all software reports.
+     * Generates a report file with all hardware reports in a specific format.
      *
+     * @param exporter The exporter that writes the format
      * @return The name of the generated file
      * @throws IOException If an error occurs while writing the file
      */
-    public String generateSoftwareReport() throws IOException {
-        return generateReport("Software");
+    public String generateHardwareReport(ReportExporter exporter) throws IOException {
+        return generateReport("Hardware", exporter);
     }
 
     /**
-     * Helper method to generate a report file of a specific type.
+     * Generates a report file with all software reports.
      *
-     * @param type The type of report to generate ("Hardware" or "Software")
      * @return The name of the generated file
      * @throws IOException If an error occurs while writing the file
      */
-    private String generateReport(String type) throws IOException {
-        // Create reports directory if it doesn't exist
-        File reportsDir = new File(REPORTS_FOLDER);
-        if (!reportsDir.exists()) {
-            reportsDir.mkdirs();
+    public String generateSoftwareReport() throws IOException {
+        return generateReport("Software", new TextReportExporter());
+    }
+
+    /**
+     * Generates a report file with all software reports in a specific format.
+     *
+     * @param exporter The exporter that writes the format
+     * @return The name of the generated file
+     * @throws IOException If an error occurs while writing the file
+     */
+    public String generateSoftwareReport(ReportExporter exporter) throws IOException {
+        return generateReport("Software", exporter);
+    }
+
+    /**
+     * Generates a report file with the hardware reports added since the last incremental
+     * hardware export.
+     *
+     * @return The name of the generated file, or null if there are no new hardware reports
+     * @throws IOException If an error occurs while writing the file
+     */
+    public String generateIncrementalHardwareReport() throws IOException {
+        return generateIncrementalReport("Hardware", new TextReportExporter());
+    }
+
+    /**
+     * Generates a report file in a specific format with the hardware reports added since
+     * the last incremental hardware export.
+     *
+     * @param exporter The exporter that writes the format
+     * @return The name of the generated file, or null if there are no new hardware reports
+     * @throws IOException If an error occurs while writing the file
+     */
+    public String generateIncrementalHardwareReport(ReportExporter exporter) throws IOException {
+        return generateIncrementalReport("Hardware", exporter);
+    }
+
+    /**
+     * Generates a report file with the software reports added since the last incremental
+     * software export.
+     *
+     * @return The name of the generated file, or null if there are no new software reports
+     * @throws IOException If an error occurs while writing the file
+     */
+    public String generateIncrementalSoftwareReport() throws IOException {
+        return generateIncrementalReport("Software", new TextReportExporter());
+    }
+
+    /**
+     * Generates a report file in a specific format with the software reports added since
+     * the last incremental software export.
+     *
+     * @param exporter The exporter that writes the format
+     * @return The name of the generated file, or null if there are no new software reports
+     * @throws IOException If an error occurs while writing the file
+     */
+    public String generateIncrementalSoftwareReport(ReportExporter exporter) throws IOException {
+        return generateIncrementalReport("Software", exporter);
+    }
+
+    /**
+     * Helper method to generate a report file of a specific type.
+     *
+     * @param type The type of report to generate ("Hardware" or "Software")
+     * @param exporter The exporter that writes the file
+     * @return The name of the generated file
+     * @throws IOException If an error occurs while writing the file
+     */
+    private String generateReport(String type, ReportExporter exporter) throws IOException {
+        lock.readLock().lock();
+        try {
+            String filename = newReportFilename("Reporte_" + type, exporter.getFileExtension());
+            writeReport(filename, exporter, "Reporte de " + type, ordinalsOfType(type, 0, listReports.size()));
+            return filename;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Helper method to generate a report file with the reports of a specific type added
+     * since the high-water mark of that type, and then move the mark to the end of the list.
+     * Only the new part of the list is scanned.
+     *
+     * @param type The type of report to generate ("Hardware" or "Software")
+     * @param exporter The exporter that writes the file
+     * @return The name of the generated file, or null if there are no new reports
+     * @throws IOException If an error occurs while writing the file
+     */
+    private String generateIncrementalReport(String type, ReportExporter exporter) throws IOException {
+        synchronized (exportMarks) {
+            lock.readLock().lock();
+            try {
+                int from = Math.min(Integer.parseInt(exportMarks.getProperty(type, "0")), listReports.size());
+                int to = listReports.size();
+                OrdinalList ordinals = ordinalsOfType(type, from, to);
+                if (ordinals.size() == 0) {
+                    return null;
+                }
+
+                String filename = newReportFilename("Reporte_" + type + "_incremental", exporter.getFileExtension());
+                writeReport(filename, exporter, "Reporte incremental de " + type, ordinals);
+
+                exportMarks.setProperty(type, String.valueOf(to));
+                saveExportMarks();
+                return filename;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Finds the reports of a specific type in a range of the list of reports.
+     *
+     * @param type The type of report ("Hardware" or "Software")
+     * @param from The first ordinal of the range
+     * @param to The ordinal after the last one of the range
+     * @return The ordinals of the reports of the type, in registration order
+     */
+    private OrdinalList ordinalsOfType(String type, int from, int to) {
+        OrdinalList ordinals = new OrdinalList();
+        for (int i = from; i < to; i++) {
+            if (isOfType(listReports.get(i), type)) {
+                ordinals.add(i);
+            }
+        }
+        return ordinals;
+    }
+
+    /**
+     * Checks if a report is of a specific type.
+     *
+     * @param report The report to check
+     * @param type The type of report ("Hardware" or "Software")
+     * @return True if the report is of the type
+     */
+    private static boolean isOfType(Report report, String type) {
+        return (type.equals("Hardware") && report instanceof Hardware) ||
+                (type.equals("Software") && report instanceof Software);
+    }
+
+    /**
+     * Builds the name of a new report file stamped with the current date and time.
+     * A counter is appended if a file with the same name already exists.
+     *
+     * @param prefix The start of the file name
+     * @param extension The extension of the file, without the dot
+     * @return The path of the new file
+     */
+    private String newReportFilename(String prefix, String extension) {
+        // Create reports directory if it doesn't exist
+        File reportsDir = new File(reportsFolder);
+        if (!reportsDir.exists()) {
+            reportsDir.mkdirs();
         }
 
         // Generate filename with current date and time
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
-        String timestamp = LocalDate.now().atStartOfDay().format(formatter);
-        String filename = REPORTS_FOLDER + "Reporte_" + type + "_" + timestamp + ".txt";
+        String base = reportsFolder + prefix + "_" + LocalDateTime.now().format(formatter);
+        String filename = base + "." + extension;
+        for (int copy = 2; new File(filename).exists(); copy++) {
+            filename = base + "_" + copy + "." + extension;
+        }
+        return filename;
+    }
 
-        // Write report contents to file
-        try (FileOutputStream fos = new FileOutputStream(filename);
-             java.io.PrintWriter writer = new java.io.PrintWriter(fos)) {
+    /**
+     * Writes a list of reports into a file through an exporter.
+     *
+     * @param filename The path of the file to write
+     * @param exporter The exporter that writes the file
+     * @param title The title of the export
+     * @param ordinals The ordinals of the reports to write
+     * @throws IOException If an error occurs while writing the file
+     */
+    private void writeReport(String filename, ReportExporter exporter, String title, OrdinalList ordinals)
+            throws IOException {
+        Iterable<Report> reports = () -> new Iterator<Report>() {
+            private int position;
 
-            writer.println("Reporte de " + type + " generado el " + LocalDate.now());
-            writer.println("----------------------------------------");
+            @Override
+            public boolean hasNext() {
+                return position < ordinals.size();
+            }
 
-            for (Report report : listReports) {
-                if ((type.equals("Hardware") && report instanceof Hardware) ||
-                        (type.equals("Software") && report instanceof Software)) {
-                    writer.println(report.getReportInfo());
+            @Override
+            public Report next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
                 }
+                return listReports.get(ordinals.get(position++));
             }
+        };
+
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            exporter.export(title, reports, channel);
         }
+    }
 
-        return filename;
+    /**
+     * Gets the cache of query results, which reports its hit and miss rates.
+     *
+     * @return The query cache
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * Answers a query from the cache, or runs it and caches its result.
+     * The cache holds the ordinals of the result, and the reports are read from the list
+     * on every call, so off-heap reports are not kept on the heap by the cache.
+     * The query runs under the read lock, so no report can be added between
+     * computing the result and storing it.
+     *
+     * @param kind The kind of query
+     * @param value The query parameter
+     * @param query The query to run on a cache miss, returning the ordinals of the result
+     * @param ordinalsOut The list that receives the ordinals of the result, or null
+     * @return An unmodifiable list with the result of the query
+     */
+    private List<Report> cachedQuery(QueryCache.Kind kind, Object value, Supplier<int[]> query, OrdinalList ordinalsOut) {
+        lock.readLock().lock();
+        try {
+            int[] ordinals = queryCache.get(kind, value);
+            if (ordinals == null) {
+                ordinals = query.get();
+                queryCache.put(kind, value, ordinals);
+            }
+
+            List<Report> results = new ArrayList<>(ordinals.length);
+            for (int ordinal : ordinals) {
+                results.add(listReports.get(ordinal));
+                if (ordinalsOut != null) {
+                    ordinalsOut.add(ordinal);
+                }
+            }
+            return Collections.unmodifiableList(results);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the ordinals of an index entry into an array.
+     *
+     * @param ordinals The ordinals, or null for no reports
+     * @return A new array with the ordinals
+     */
+    private static int[] toArray(OrdinalList ordinals) {
+        return ordinals == null ? new int[0] : ordinals.toArray();
+    }
+
+    /**
+     * Adds a report at the end of the list and updates the indexes and sketches,
+     * unless it duplicates a registered report and the duplicate policy keeps it out.
+     *
+     * @param report The report to add
+     * @return Null if the report was added as a new report, or the match with the registered report it duplicates
+     * @throws DuplicateReportException If the report is a duplicate and the policy is REJECT
+     */
+    private DuplicateMatch appendReport(Report report) throws DuplicateReportException {
+        long[] fingerprints = DuplicateDetector.fingerprints(report);
+        int original = findDuplicate(fingerprints);
+        DuplicateMatch match = null;
+        if (original >= 0) {
+            DuplicatePolicy policy = duplicatePolicy;
+            if (policy == DuplicatePolicy.REJECT) {
+                throw new DuplicateReportException("Reporte duplicado. "
+                        + newMatch(report, original, fingerprints, policy), original);
+            }
+            match = newMatch(report, original, fingerprints, policy);
+            if (policy == DuplicatePolicy.MERGE) {
+                mergedDuplicates++;
+                return match;
+            }
+            flaggedReports.add(listReports.size());
+            flaggedOriginals.add(original);
+        }
+
+        duplicates.add(fingerprints);
+        listReports.add(report);
+        indexReport(report, listReports.size() - 1);
+        sketches.add(report);
+        escalations.evaluate(report, listReports.size() - 1);
+        events.publish(ReportEventType.ADDED, listReports.size() - 1, report);
+        return match;
+    }
+
+    /**
+     * Looks for a registered report that a new one duplicates, first exactly and then
+     * by a near-identical description.
+     *
+     * @param fingerprints The fingerprints of the new report
+     * @return The ordinal of the registered report, or -1 if the report is not a duplicate
+     */
+    private int findDuplicate(long[] fingerprints) {
+        int original = duplicates.findExact(fingerprints);
+        return original >= 0 ? original : duplicates.findNear(fingerprints);
     }
 
     /**
-     * Loads data from the serialized file into the list of reports.
+     * Builds the match of a new report with the registered report it duplicates.
+     *
+     * @param report The new report
+     * @param original The ordinal of the registered report
+     * @param fingerprints The fingerprints of the new report
+     * @param policy The policy applied to the new report
+     * @return The match
+     */
+    private DuplicateMatch newMatch(Report report, int original, long[] fingerprints, DuplicatePolicy policy) {
+        boolean exact = duplicates.findExact(fingerprints) == original;
+        return new DuplicateMatch(report, listReports.get(original), original, exact, policy);
+    }
+
+    /**
+     * Adds the fingerprints of a loaded report, flagging it if it duplicates an earlier
+     * one, since it is already registered.
+     *
+     * @param report The loaded report
+     * @param ordinal The ordinal of the report, right after the last one with fingerprints
+     */
+    private void addFingerprints(Report report, int ordinal) {
+        long[] fingerprints = DuplicateDetector.fingerprints(report);
+        int original = findDuplicate(fingerprints);
+        if (original >= 0) {
+            flaggedReports.add(ordinal);
+            flaggedOriginals.add(original);
+        }
+        duplicates.add(fingerprints);
+    }
+
+    /**
+     * Indexes the stored fingerprints again after a report was replaced or removed, flagging
+     * the duplicates found among the registered reports. No description is hashed again.
+     */
+    private void reindexDuplicates() {
+        flaggedReports = new OrdinalList();
+        flaggedOriginals = new OrdinalList();
+        duplicates.reindex(flaggedReports, flaggedOriginals);
+    }
+
+    /**
+     * Finds the position of a registered report.
+     * Reports are compared by identity, or by content when they were decoded from
+     * off-heap storage, in which case the first report with the same content is found.
+     * Off-heap, only the reports of the same equipment are decoded.
+     *
+     * @param report The report to find
+     * @return The ordinal of the report, or -1 if it is not registered
+     */
+    private int ordinalOf(Report report) {
+        if (!(listReports instanceof OffHeapReportStore)) {
+            for (int i = 0; i < listReports.size(); i++) {
+                if (listReports.get(i) == report) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        OrdinalList candidates = indexById.get(report.getId_gadget());
+        for (int i = 0; candidates != null && i < candidates.size(); i++) {
+            Report candidate = listReports.get(candidates.get(i));
+            if (candidate.getClass() == report.getClass()
+                    && candidate.getReportInfo().equals(report.getReportInfo())) {
+                return candidates.get(i);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a report to every index.
+     *
+     * @param report The report to index
+     * @param ordinal The position of the report inside the list of reports
+     */
+    private void indexReport(Report report, int ordinal) {
+        indexById.computeIfAbsent(report.getId_gadget(), key -> new OrdinalList()).add(ordinal);
+        Severity severity = report.getSeverityType();
+        // Reports with no severity level, which older data files may hold, stay out of the severity indexes
+        if (severity != null) {
+            indexBySeverity.computeIfAbsent(severity, key -> new OrdinalList()).add(ordinal);
+        }
+        indexByDate.computeIfAbsent(report.getDate_report(), key -> new OrdinalList()).add(ordinal);
+        queryCache.invalidate(report);
+        EquipmentTimeline timeline = timelines.get(report.getId_gadget());
+        if (timeline != null) {
+            timeline.add(ordinal, report);
+        }
+
+        LocalDate date = report.getDate_report();
+        String quarter = quarterKey(date.getYear(), (date.getMonthValue() - 1) / 3 + 1);
+        if (severity != null) {
+            equipmentCountsByQuarter.computeIfAbsent(quarter, key -> new EnumMap<>(Severity.class))
+                    .computeIfAbsent(severity, key -> new TopKCounter())
+                    .increment(report.getId_gadget());
+        }
+        if (report instanceof Hardware && ((Hardware) report).isHasToReplace()) {
+            componentsToReplace.increment(((Hardware) report).getComponent_type());
+        }
+    }
+
+    /**
+     * Gets the timeline of an equipment, building it from the ID index the first time.
+     * Must be called while holding the lock; readers may build timelines at the same time,
+     * which is why they live in a concurrent map.
+     *
+     * @param idGadget The ID of an equipment with reports
+     * @return The timeline of the equipment
+     */
+    private EquipmentTimeline timelineOf(String idGadget) {
+        return timelines.computeIfAbsent(idGadget,
+                key -> EquipmentTimeline.build(key, indexById.get(key), listReports));
+    }
+
+    /**
+     * Builds the key of a quarter, such as 2025-Q2.
+     *
+     * @param year The year of the quarter
+     * @param quarter The quarter of the year, from 1 to 4
+     * @return The key of the quarter
+     */
+    private static String quarterKey(int year, int quarter) {
+        return year + "-Q" + quarter;
+    }
+
+    /**
+     * Rebuilds every index from the current list of reports.
+     */
+    private void rebuildIndexes() {
+        clearIndexes();
+        for (int i = 0; i < listReports.size(); i++) {
+            indexReport(listReports.get(i), i);
+        }
+    }
+
+    /**
+     * Replaces every index with an empty one.
+     */
+    private void clearIndexes() {
+        indexById = new LinkedHashMap<>();
+        indexBySeverity = new EnumMap<>(Severity.class);
+        indexByDate = new TreeMap<>();
+        equipmentCountsByQuarter = new HashMap<>();
+        componentsToReplace = new TopKCounter();
+        timelines.clear();
+        queryCache.clear();
+    }
+
+    /**
+     * Rebuilds the sketches from the current list of reports.
+     */
+    private void rebuildSketches() {
+        sketches = new ReportSketches();
+        for (Report report : listReports) {
+            sketches.add(report);
+        }
+    }
+
+    /**
+     * Loads the indexes saved next to the data file, or starts empty indexes if they
+     * are missing or belong to another version of the data.
+     *
+     * @return The number of first reports the loaded indexes cover
+     */
+    private int loadIndexes() {
+        clearIndexes();
+        duplicates.clear();
+        if (snapshotStamp == 0) {
+            return 0;
+        }
+
+        try {
+            IndexFile index = IndexFile.read(Path.of(indexFile), snapshotStamp, listReports.size());
+            if (index == null) {
+                return 0;
+            }
+
+            indexById = index.indexById;
+            indexBySeverity = index.indexBySeverity;
+            indexByDate = index.indexByDate;
+            equipmentCountsByQuarter = index.equipmentCountsByQuarter;
+            componentsToReplace = index.componentsToReplace;
+            duplicates.load(index.fingerprints, index.reportCount, flaggedReports, flaggedOriginals);
+            return index.reportCount;
+
+        } catch (IOException | RuntimeException e) {
+            clearIndexes();
+            duplicates.clear();
+            flaggedReports = new OrdinalList();
+            flaggedOriginals = new OrdinalList();
+            System.err.println("Error loading indexes: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Encodes the indexes for the index file. Must be called holding the read or write lock.
+     *
+     * @param reportCount The number of reports indexed
+     * @return The bytes of the index file
+     */
+    private byte[] encodeIndexes(int reportCount) {
+        IndexFile index = new IndexFile();
+        index.indexById = indexById;
+        index.indexBySeverity = indexBySeverity;
+        index.indexByDate = indexByDate;
+        index.equipmentCountsByQuarter = equipmentCountsByQuarter;
+        index.componentsToReplace = componentsToReplace;
+        index.fingerprints = duplicates.fingerprintArray();
+        return IndexFile.encode(snapshotStamp, reportCount, index);
+    }
+
+    /**
+     * Loads the reports from the data file, streaming its records into the list of reports.
+     * A data file saved by older versions as a serialized list is read whole.
+     *
+     * @return True if the data file is missing or serialized and must be written in the record format
      */
     @SuppressWarnings("unchecked")
-    private void loadData() {
-        File file = new File(DATA_FILE);
+    private boolean loadData() {
+        File file = new File(dataFile);
 
         // If the file doesn't exist, create the directory structure
         if (!file.exists()) {
-            File dataDir = new File("data");
+            File dataDir = file.getParentFile();
             if (!dataDir.exists()) {
                 dataDir.mkdirs();
             }
-            return;
+            return true;
+        }
+
+        try {
+            if (data.hasRecordFormat()) {
+                snapshotStamp = data.read(listReports);
+                persistedCount = listReports.size();
+                return false;
+            }
+        } catch (IOException e) {
+            // The next save writes the reports read so far in full
+            persistedCount = -1;
+            System.err.println("Error loading data: " + e.getMessage());
+            return false;
         }
 
-        try (FileInputStream fis = new FileInputStream(DATA_FILE);
+        try (FileInputStream fis = new FileInputStream(dataFile);
              ObjectInputStream ois = new ObjectInputStream(fis)) {
 
-            listReports = (List<Report>) ois.readObject();
+            listReports.addAll((List<Report>) ois.readObject());
+
+            // Files saved before the stamp was introduced end right after the list
+            try {
+                snapshotStamp = ois.readLong();
+            } catch (EOFException e) {
+                snapshotStamp = 0;
+            }
+            return true;
 
         } catch (IOException | ClassNotFoundException e) {
+            persistedCount = -1;
             System.err.println("Error loading data: " + e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Saves the list of reports to the serialized file.
+     * Copies a data file in the serialized format of older versions to the same path with
+     * {@value #BACKUP_SUFFIX} appended, before it is replaced by the record format.
+     * A backup left by an earlier conversion is replaced.
      */
-    private void saveData() {
-        try (FileOutputStream fos = new FileOutputStream(DATA_FILE);
-             ObjectOutputStream oos = new ObjectOutputStream(fos)) {
+    private void backupSerializedData() {
+        Path original = Path.of(dataFile);
+        if (!Files.exists(original)) {
+            return;
+        }
 
-            oos.writeObject(listReports);
+        try {
+            Files.copy(original, original.resolveSibling(original.getFileName() + BACKUP_SUFFIX),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        } catch (IOException e) {
+            System.err.println("Error backing up data: " + e.getMessage());
+        }
+    }
 
+    /**
+     * Loads the high-water marks of the incremental exports.
+     */
+    private void loadExportMarks() {
+        File file = new File(exportMarksFile);
+        if (!file.exists()) {
+            return;
+        }
+
+        try (FileInputStream fis = new FileInputStream(file)) {
+            exportMarks.load(fis);
+        } catch (IOException e) {
+            System.err.println("Error loading export marks: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the high-water marks of the incremental exports.
+     */
+    private void saveExportMarks() {
+        try (FileOutputStream fos = new FileOutputStream(exportMarksFile)) {
+            exportMarks.store(fos, "Reports already written by the incremental exports");
         } catch (IOException e) {
+            System.err.println("Error saving export marks: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reclaims the off-heap space left by replaced and removed reports once it outgrows the
+     * space of the live ones. Must be called holding the write lock, since it moves the reports.
+     */
+    private void compactReports() {
+        if (listReports instanceof OffHeapReportStore) {
+            ((OffHeapReportStore) listReports).compactIfWasteful();
+        }
+    }
+
+    /**
+     * Writes the whole list of reports to the data file with a new stamp, followed by the
+     * indexes, sketches and escalation state. Must be called holding the persist lock and the read or write lock.
+     */
+    private void saveData() {
+        try {
+            // A new stamp ties the files saved next to it to this version of the data
+            snapshotStamp = data.rewrite(listReports, events.getNextSequence());
+            persistedCount = listReports.size();
+        } catch (IOException e) {
+            persistedCount = -1;
             System.err.println("Error saving data: " + e.getMessage());
+            return;
         }
+        checkpoint();
+    }
+
+    /**
+     * Loads the sketches saved next to the data file, or starts empty sketches if they
+     * are missing or belong to another version of the data.
+     *
+     * @return The number of first reports the loaded sketches cover
+     */
+    private int loadSketches() {
+        sketches = new ReportSketches();
+        File file = new File(sketchesFile);
+        if (!file.exists()) {
+            return 0;
+        }
+
+        try (FileInputStream fis = new FileInputStream(file);
+             ObjectInputStream ois = new ObjectInputStream(fis)) {
+
+            // The sketches are only valid for the data file they were saved with
+            long stamp = ois.readLong();
+            int reportCount = ois.readInt();
+            if (snapshotStamp == 0 || stamp != snapshotStamp || reportCount > listReports.size()) {
+                return 0;
+            }
+            sketches = (ReportSketches) ois.readObject();
+            return reportCount;
+
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("Error loading sketches: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Loads the escalation state saved next to the data file, or starts a new escalation
+     * engine if it is missing or belongs to another version of the data.
+     *
+     * @return The number of first reports the loaded state covers
+     */
+    private int loadEscalations() {
+        escalations = new EscalationEngine();
+        File file = new File(escalationsFile);
+        if (!file.exists()) {
+            return 0;
+        }
+
+        try (FileInputStream fis = new FileInputStream(file);
+             ObjectInputStream ois = new ObjectInputStream(fis)) {
+
+            // The state is only valid for the data file it was saved with
+            long stamp = ois.readLong();
+            int reportCount = ois.readInt();
+            if (snapshotStamp == 0 || stamp != snapshotStamp || reportCount > listReports.size()) {
+                return 0;
+            }
+            escalations = (EscalationEngine) ois.readObject();
+            return reportCount;
+
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("Error loading escalations: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Encodes the sketches or the escalation state for the file saved next to the data file,
+     * after the stamp of the data file and the number of reports it covers.
+     * Must be called holding the read or write lock.
+     *
+     * @param state The sketches or the escalation engine
+     * @param reportCount The number of reports added to the state
+     * @return The bytes of the file
+     * @throws IOException If the state cannot be serialized
+     */
+    private byte[] encodeState(Serializable state, int reportCount) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeLong(snapshotStamp);
+            oos.writeInt(reportCount);
+            oos.writeObject(state);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a file saved next to the data file, replacing the current one once it is complete,
+     * so a file cut short is never read.
+     *
+     * @param path The path of the file
+     * @param bytes The contents of the file
+     * @throws IOException If an error occurs while writing
+     */
+    private static void writeSideFile(String path, byte[] bytes) throws IOException {
+        Path target = Path.of(path);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(temporary, bytes);
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Replaces a deserialized controller with one loaded from its base directory.
+     * Only the base directory and the storage choice are serialized; the reports,
+     * indexes and lock always come from the data files.
+     *
+     * @return A new controller over the same data files
+     */
+    private Object readResolve() {
+        return new Controller(baseDirectory, offHeap);
     }
-}
\ No newline at end of file
+}
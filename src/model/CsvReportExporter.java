@@ -0,0 +1,120 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Exporter for the CSV format (RFC 4180): a header row and one row per report.
+ * Fields with commas, quotes or line breaks are quoted, so descriptions with dashes
+ * or commas are never ambiguous. Columns that do not apply to a report type are empty.
+ */
+public class CsvReportExporter implements ReportExporter {
+
+    private static final String HEADER = "type,id_gadget,description,severity,date,component_type,"
+            + "serialNumber,hasToReplace,systemOperation,softwareName,version\r\n";
+
+    /**
+     * Gets the extension of the CSV files.
+     *
+     * @return The "csv" extension
+     */
+    @Override
+    public String getFileExtension() {
+        return "csv";
+    }
+
+    /**
+     * Writes the header row and one row per report.
+     *
+     * @param title The title of the export, not written in this format
+     * @param reports The reports to write
+     * @param channel The channel that receives the exported bytes
+     * @throws IOException If an error occurs while writing
+     */
+    @Override
+    public void export(String title, Iterable<Report> reports, WritableByteChannel channel) throws IOException {
+        BufferedChannelWriter writer = new BufferedChannelWriter(channel);
+        Utf8.put(writer.reserve(HEADER.length()), HEADER);
+
+        for (Report report : reports) {
+            // Quoting can double every char, on top of the worst UTF-8 size
+            ByteBuffer buffer = writer.reserve(2 * report.maxReportInfoBytes() + 64);
+            if (report instanceof Hardware) {
+                Hardware hardware = (Hardware) report;
+                putCommonFields(buffer, "Hardware", report);
+                putField(buffer, hardware.getComponent_type());
+                buffer.put((byte) ',');
+                Utf8.putInt(buffer, hardware.getSerialNumber());
+                buffer.put((byte) ',');
+                Utf8.put(buffer, hardware.isHasToReplace() ? "true" : "false");
+                Utf8.put(buffer, ",,,\r\n");
+            } else {
+                Software software = (Software) report;
+                putCommonFields(buffer, "Software", report);
+                Utf8.put(buffer, ",,,");
+                putField(buffer, software.getSystemOperation());
+                buffer.put((byte) ',');
+                putField(buffer, software.getSoftwareName());
+                buffer.put((byte) ',');
+                putField(buffer, software.getVersion());
+                Utf8.put(buffer, "\r\n");
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Writes the columns shared by every report type, each followed by a comma.
+     *
+     * @param buffer The buffer that receives the bytes
+     * @param type The type of the report
+     * @param report The report to write
+     */
+    private static void putCommonFields(ByteBuffer buffer, String type, Report report) {
+        Utf8.put(buffer, type);
+        buffer.put((byte) ',');
+        putField(buffer, report.getId_gadget());
+        buffer.put((byte) ',');
+        putField(buffer, report.getDescription());
+        buffer.put((byte) ',');
+        buffer.put(Utf8.severity(report.getSeverityType()));
+        buffer.put((byte) ',');
+        Utf8.put(buffer, report.getDateText());
+        buffer.put((byte) ',');
+    }
+
+    /**
+     * Writes a field, quoting it when it contains a comma, a quote or a line break.
+     *
+     * @param buffer The buffer that receives the bytes
+     * @param value The value of the field, written empty when null
+     */
+    private static void putField(ByteBuffer buffer, String value) {
+        if (value == null) {
+            return;
+        }
+
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            Utf8.put(buffer, value);
+            return;
+        }
+
+        buffer.put((byte) '"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                Utf8.put(buffer, value, start, i + 1);
+                buffer.put((byte) '"');
+                start = i + 1;
+            }
+        }
+        Utf8.put(buffer, value, start, value.length());
+        buffer.put((byte) '"');
+    }
+}
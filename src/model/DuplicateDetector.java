@@ -0,0 +1,390 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Index of report fingerprints used to detect duplicates as reports are registered.
+ * Two fingerprints are kept for each report, in primitive arrays by ordinal with no object per report:
+ * <ul>
+ *     <li>An exact fingerprint: a 64-bit hash of every field, with the description in
+ *     lower case and its whitespace collapsed. Equal fingerprints mean an exact duplicate.</li>
+ *     <li>A SimHash of the character trigrams of the description, stored in a bucket per equipment ID,
+ *     report type, date and severity. A report whose SimHash differs in at most a few bits from another
+ *     report of its bucket has a near-identical description.</li>
+ * </ul>
+ * Each check is O(1): one hash lookup, plus a scan of a bucket that only holds the reports
+ * of the same type and equipment on the same day with the same severity. The fingerprints are saved
+ * with the Controller indexes, so loading them does not hash any description again.
+ */
+class DuplicateDetector {
+
+    // Maximum number of different SimHash bits between near-identical descriptions
+    static final int DEFAULT_MAX_DISTANCE = 6;
+
+    // Length of the character shingles hashed into the SimHash
+    private static final int SHINGLE_LENGTH = 3;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int maxDistance;
+
+    // Exact fingerprint -> ordinal of the first report with it
+    private final LongIntMap exact = new LongIntMap();
+
+    // Bucket key -> newest ordinal of the bucket; the ordinals of a bucket are chained through next
+    private final LongIntMap buckets = new LongIntMap();
+    private int[] next = new int[16];
+
+    // Exact fingerprint, bucket key and SimHash of each ordinal, three values per report
+    private long[] fingerprints = new long[48];
+    private int size;
+
+    /**
+     * Constructor for the DuplicateDetector class.
+     *
+     * @param maxDistance The maximum number of different SimHash bits between near duplicates
+     */
+    DuplicateDetector(int maxDistance) {
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * Computes the fingerprints of a report.
+     *
+     * @param report The report
+     * @return The exact fingerprint, the bucket key and the SimHash of the description
+     */
+    static long[] fingerprints(Report report) {
+        String description = normalize(report.getDescription());
+
+        long bucket = hash(FNV_OFFSET, report.getId_gadget());
+        bucket = hash(bucket, String.valueOf(report.getDate_report()));
+        bucket = hash(bucket, String.valueOf(report.getSeverityType()));
+        // A Hardware and a Software report of the same equipment are different incidents
+        bucket = hash(bucket, report instanceof Hardware ? "H" : "S");
+
+        long fingerprint = hash(bucket, description);
+        if (report instanceof Hardware) {
+            Hardware hardware = (Hardware) report;
+            fingerprint = hash(fingerprint, "H");
+            fingerprint = hash(fingerprint, hardware.getComponent_type());
+            fingerprint = hash(fingerprint, String.valueOf(hardware.getSerialNumber()));
+            fingerprint = hash(fingerprint, String.valueOf(hardware.isHasToReplace()));
+        } else if (report instanceof Software) {
+            Software software = (Software) report;
+            fingerprint = hash(fingerprint, "S");
+            fingerprint = hash(fingerprint, software.getSystemOperation());
+            fingerprint = hash(fingerprint, software.getSoftwareName());
+            fingerprint = hash(fingerprint, software.getVersion());
+        }
+
+        return new long[]{mix(fingerprint), mix(bucket), simHash(description)};
+    }
+
+    /**
+     * Finds a registered report with the same exact fingerprint.
+     *
+     * @param fingerprints The fingerprints of the new report
+     * @return The ordinal of the registered report, or -1 if there is none
+     */
+    int findExact(long[] fingerprints) {
+        return exact.get(fingerprints[0]);
+    }
+
+    /**
+     * Finds a registered report of the same bucket with a near-identical description.
+     *
+     * @param fingerprints The fingerprints of the new report
+     * @return The ordinal of the registered report, or -1 if there is none
+     */
+    int findNear(long[] fingerprints) {
+        return findNear(fingerprints[1], fingerprints[2]);
+    }
+
+    /**
+     * Adds the fingerprints of the report registered after every other one.
+     *
+     * @param fingerprints The fingerprints of the report
+     */
+    void add(long[] fingerprints) {
+        if (size == next.length) {
+            next = Arrays.copyOf(next, size * 2);
+            this.fingerprints = Arrays.copyOf(this.fingerprints, size * 6);
+        }
+        System.arraycopy(fingerprints, 0, this.fingerprints, size * 3, 3);
+        index(size++);
+    }
+
+    /**
+     * Replaces the fingerprints of a registered report.
+     * The detector must be indexed again with {@link #reindex} before the next check.
+     *
+     * @param ordinal The ordinal of the report
+     * @param fingerprints The fingerprints of the new version of the report
+     */
+    void set(int ordinal, long[] fingerprints) {
+        System.arraycopy(fingerprints, 0, this.fingerprints, ordinal * 3, 3);
+    }
+
+    /**
+     * Removes the fingerprints of a registered report; the reports after it move one position back.
+     * The detector must be indexed again with {@link #reindex} before the next check.
+     *
+     * @param ordinal The ordinal of the report
+     */
+    void remove(int ordinal) {
+        System.arraycopy(fingerprints, (ordinal + 1) * 3, fingerprints, ordinal * 3, (size - ordinal - 1) * 3);
+        size--;
+    }
+
+    /**
+     * Replaces every fingerprint with fingerprints saved before, and indexes them.
+     *
+     * @param saved The saved fingerprints, three values per report
+     * @param reportCount The number of reports of the saved fingerprints
+     * @param duplicateOrdinals Receives the ordinal of each report that duplicates an earlier one
+     * @param originalOrdinals Receives the ordinal of the earlier report each of them duplicates
+     */
+    void load(long[] saved, int reportCount, OrdinalList duplicateOrdinals, OrdinalList originalOrdinals) {
+        fingerprints = Arrays.copyOf(saved, Math.max(48, reportCount * 3));
+        next = new int[Math.max(16, reportCount)];
+        size = reportCount;
+        reindex(duplicateOrdinals, originalOrdinals);
+    }
+
+    /**
+     * Indexes every stored fingerprint again in ordinal order, after reports were replaced
+     * or removed. No description is hashed again.
+     *
+     * @param duplicateOrdinals Receives the ordinal of each report that duplicates an earlier one
+     * @param originalOrdinals Receives the ordinal of the earlier report each of them duplicates
+     */
+    void reindex(OrdinalList duplicateOrdinals, OrdinalList originalOrdinals) {
+        exact.clear();
+        buckets.clear();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            int original = exact.get(fingerprints[ordinal * 3]);
+            if (original < 0) {
+                original = findNear(fingerprints[ordinal * 3 + 1], fingerprints[ordinal * 3 + 2]);
+            }
+            if (original >= 0) {
+                duplicateOrdinals.add(ordinal);
+                originalOrdinals.add(original);
+            }
+            index(ordinal);
+        }
+    }
+
+    /**
+     * Checks whether two registered reports have the same exact fingerprint.
+     *
+     * @param ordinal The ordinal of a report
+     * @param other The ordinal of another report
+     * @return True if every field of the reports matches
+     */
+    boolean isExactPair(int ordinal, int other) {
+        return fingerprints[ordinal * 3] == fingerprints[other * 3];
+    }
+
+    /**
+     * Gets the array of stored fingerprints to save them, without copying it.
+     * It holds three values per report, and may be longer than that.
+     * Must only be read while the detector does not change.
+     *
+     * @return The stored fingerprints
+     */
+    long[] fingerprintArray() {
+        return fingerprints;
+    }
+
+    /**
+     * Forgets every fingerprint.
+     */
+    void clear() {
+        exact.clear();
+        buckets.clear();
+        size = 0;
+    }
+
+    /**
+     * Adds a stored fingerprint to the exact map and to its bucket.
+     *
+     * @param ordinal The ordinal of the report
+     */
+    private void index(int ordinal) {
+        long fingerprint = fingerprints[ordinal * 3];
+        if (exact.get(fingerprint) < 0) {
+            exact.put(fingerprint, ordinal);
+        }
+        long bucket = fingerprints[ordinal * 3 + 1];
+        next[ordinal] = buckets.get(bucket);
+        buckets.put(bucket, ordinal);
+    }
+
+    /**
+     * Finds an indexed report of a bucket with a SimHash close to another one.
+     *
+     * @param bucket The bucket key
+     * @param simHash The SimHash to compare
+     * @return The ordinal of the newest such report, or -1 if there is none
+     */
+    private int findNear(long bucket, long simHash) {
+        for (int ordinal = buckets.get(bucket); ordinal >= 0; ordinal = next[ordinal]) {
+            if (Long.bitCount(fingerprints[ordinal * 3 + 2] ^ simHash) <= maxDistance) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a field to a 64-bit FNV-1a hash, followed by a separator.
+     *
+     * @param hash The hash so far
+     * @param value The field, or null
+     * @return The updated hash
+     */
+    private static long hash(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        return (hash ^ 0x1F) * FNV_PRIME;
+    }
+
+    /**
+     * Spreads the bits of a hash so that similar inputs give unrelated values.
+     *
+     * @param hash The hash
+     * @return The mixed hash
+     */
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    /**
+     * Normalizes a description: lower case, trimmed and with single spaces between words.
+     * The lower case does not depend on the default locale, so fingerprints are the same everywhere.
+     *
+     * @param description The description, or null
+     * @return The normalized description
+     */
+    private static String normalize(String description) {
+        if (description == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(description.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+
+    /**
+     * Computes the SimHash of the character shingles of a text. Each shingle votes on every
+     * bit with the bits of its hash, so texts sharing most shingles get hashes with few
+     * different bits. Character shingles give short descriptions enough votes for one
+     * changed word to move only a few bits.
+     *
+     * @param text The normalized text
+     * @return The 64-bit SimHash
+     */
+    private static long simHash(String text) {
+        int[] votes = new int[Long.SIZE];
+        int shingles = Math.max(1, text.length() - SHINGLE_LENGTH + 1);
+        for (int i = 0; i < shingles; i++) {
+            String shingle = text.substring(i, Math.min(text.length(), i + SHINGLE_LENGTH));
+            long shingleHash = mix(hash(FNV_OFFSET, shingle));
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                votes[bit] += ((shingleHash >>> bit) & 1) == 1 ? 1 : -1;
+            }
+        }
+
+        long simHash = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (votes[bit] > 0) {
+                simHash |= 1L << bit;
+            }
+        }
+        return simHash;
+    }
+
+    /**
+     * Open-addressing hash map from long keys to int values, stored in two arrays.
+     */
+    private static final class LongIntMap {
+        private long[] keys = new long[64];
+        private int[] values = new int[64];
+        private boolean[] used = new boolean[64];
+        private int size;
+
+        /**
+         * Gets the value of a key.
+         *
+         * @param key The key
+         * @return The value, or -1 if the key is absent
+         */
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = (int) mix(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Sets the value of a key.
+         *
+         * @param key The key
+         * @param value The value
+         */
+        void put(long key, int value) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = (int) mix(key) & mask;
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (!used[slot]) {
+                used[slot] = true;
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] = value;
+        }
+
+        /**
+         * Removes every key.
+         */
+        void clear() {
+            Arrays.fill(used, false);
+            size = 0;
+        }
+
+        /**
+         * Doubles the capacity and places every key again.
+         */
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package model;
+
+/**
+ * New report found to duplicate a registered one, with what the duplicate policy did with it.
+ */
+public class DuplicateMatch {
+
+    private final Report report;
+    private final Report original;
+    private final int originalOrdinal;
+    private final boolean exact;
+    private final DuplicatePolicy policy;
+
+    /**
+     * Constructor for the DuplicateMatch class.
+     *
+     * @param report The new report
+     * @param original The registered report it duplicates
+     * @param originalOrdinal The position of the registered report in the list of reports
+     * @param exact True if every field matches, false if only the description is similar
+     * @param policy The policy applied to the new report, MERGE or FLAG
+     */
+    public DuplicateMatch(Report report, Report original, int originalOrdinal, boolean exact, DuplicatePolicy policy) {
+        this.report = report;
+        this.original = original;
+        this.originalOrdinal = originalOrdinal;
+        this.exact = exact;
+        this.policy = policy;
+    }
+
+    /**
+     * Gets the new report.
+     *
+     * @return The duplicate report
+     */
+    public Report getReport() {
+        return report;
+    }
+
+    /**
+     * Gets the registered report the new one duplicates.
+     *
+     * @return The original report
+     */
+    public Report getOriginal() {
+        return original;
+    }
+
+    /**
+     * Gets the position of the registered report the new one duplicates.
+     *
+     * @return The ordinal of the original report
+     */
+    public int getOriginalOrdinal() {
+        return originalOrdinal;
+    }
+
+    /**
+     * Checks whether every field matches or only the description is similar.
+     *
+     * @return True for an exact duplicate, false for a near duplicate
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Gets what was done with the new report: MERGE if it was not added and only counted
+     * against the original, FLAG if it was added and the pair was flagged.
+     *
+     * @return The policy applied to the new report
+     */
+    public DuplicatePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Checks whether the new report was added to the list of reports.
+     *
+     * @return True if the report was added and flagged, false if it was merged
+     */
+    public boolean isAdded() {
+        return policy == DuplicatePolicy.FLAG;
+    }
+
+    /**
+     * Gets the match as a JSON object.
+     *
+     * @return A JSON object with the policy, whether the match is exact, the ordinal of the
+     * original and both reports
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(320);
+        json.append("{\"policy\":\"").append(policy).append('"')
+                .append(",\"exact\":").append(exact)
+                .append(",\"originalOrdinal\":").append(originalOrdinal)
+                .append(",\"original\":");
+        ReportJson.appendReport(json, original);
+        json.append(",\"report\":");
+        ReportJson.appendReport(json, report);
+        json.append('}');
+        return json.toString();
+    }
+
+    @Override
+    public String toString() {
+        return (exact ? "Duplicado exacto" : "Duplicado similar") + " del reporte " + originalOrdinal + " del equipo "
+                + original.getId_gadget() + " del " + original.getDate_report() + " (" + original.getSeverityType() + ")";
+    }
+}
@@ -0,0 +1,11 @@
+package model;
+
+/**
+ * Enumeration for what the Controller does with a new report that duplicates a registered one.
+ * Defined policies: REJECT (the registration fails), MERGE (the report is not added; the
+ * registration returns the registered report it duplicates and the merge is counted) and
+ * FLAG (the report is added and the pair is flagged).
+ */
+public enum DuplicatePolicy {
+    REJECT, MERGE, FLAG
+}
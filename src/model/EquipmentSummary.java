@@ -0,0 +1,95 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * Summary of the reports of one equipment: how many there are of each severity level,
+ * the dates of the first and last report and how many components were flagged for replacement.
+ * Summaries are immutable snapshots kept up to date by the Controller as reports arrive.
+ */
+public class EquipmentSummary {
+
+    private final String idGadget;
+    private final int[] severityCounts;
+    private final LocalDate firstReportDate;
+    private final LocalDate lastReportDate;
+    private final int openReplacements;
+
+    /**
+     * Constructor for the EquipmentSummary class.
+     *
+     * @param idGadget The ID of the equipment
+     * @param severityCounts The number of reports of each severity level, indexed by ordinal,
+     *                       followed by the number of reports with no severity level
+     * @param firstReportDate The date of the earliest report
+     * @param lastReportDate The date of the latest report
+     * @param openReplacements The number of hardware reports that require a component replacement
+     */
+    EquipmentSummary(String idGadget, int[] severityCounts, LocalDate firstReportDate,
+                     LocalDate lastReportDate, int openReplacements) {
+        this.idGadget = idGadget;
+        this.severityCounts = severityCounts;
+        this.firstReportDate = firstReportDate;
+        this.lastReportDate = lastReportDate;
+        this.openReplacements = openReplacements;
+    }
+
+    /**
+     * Gets the ID of the equipment.
+     *
+     * @return The ID of the equipment
+     */
+    public String getIdGadget() {
+        return idGadget;
+    }
+
+    /**
+     * Gets the number of reports of the equipment, including those with no severity level.
+     *
+     * @return The total number of reports
+     */
+    public int getReportCount() {
+        int total = 0;
+        for (int count : severityCounts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of reports of a severity level.
+     *
+     * @param severity The severity level, or null for the reports with no severity level
+     * @return The number of reports with that severity
+     */
+    public int getCount(Severity severity) {
+        return severityCounts[severity == null ? severityCounts.length - 1 : severity.ordinal()];
+    }
+
+    /**
+     * Gets the date of the earliest report of the equipment.
+     *
+     * @return The earliest report date
+     */
+    public LocalDate getFirstReportDate() {
+        return firstReportDate;
+    }
+
+    /**
+     * Gets the date of the latest report of the equipment.
+     *
+     * @return The latest report date
+     */
+    public LocalDate getLastReportDate() {
+        return lastReportDate;
+    }
+
+    /**
+     * Gets the number of hardware reports of the equipment that require a component replacement.
+     *
+     * @return The number of replacements flagged
+     */
+    public int getOpenReplacements() {
+        return openReplacements;
+    }
+}
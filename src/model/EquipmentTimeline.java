@@ -0,0 +1,145 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reports of one equipment sorted by date, stored as ordinals inside the list of reports,
+ * together with the running counts behind its {@link EquipmentSummary}.
+ * Reports with the same date keep their registration order. Reports usually arrive in
+ * date order, so adding one is an append; the summary is rebuilt only after a change.
+ * Reports with no severity level, which older data files may hold, are counted apart from
+ * the severity levels.
+ */
+class EquipmentTimeline {
+
+    private final String idGadget;
+    private int[] ordinals;
+    private long[] epochDays;
+    private int size;
+    // Reports of each severity level by ordinal, and in the last position those with no severity level
+    private final int[] severityCounts = new int[Severity.values().length + 1];
+    private int openReplacements;
+    private EquipmentSummary summary;
+
+    /**
+     * Constructor for the EquipmentTimeline class.
+     *
+     * @param idGadget The ID of the equipment
+     * @param capacity The initial number of reports that fit without growing
+     */
+    private EquipmentTimeline(String idGadget, int capacity) {
+        this.idGadget = idGadget;
+        this.ordinals = new int[Math.max(4, capacity)];
+        this.epochDays = new long[ordinals.length];
+    }
+
+    /**
+     * Builds the timeline of an equipment from the ordinals of its reports.
+     *
+     * @param idGadget The ID of the equipment
+     * @param reportOrdinals The ordinals of the reports of the equipment, in registration order
+     * @param reports The list of reports the ordinals point into
+     * @return The timeline of the equipment
+     */
+    static EquipmentTimeline build(String idGadget, OrdinalList reportOrdinals, List<Report> reports) {
+        int count = reportOrdinals == null ? 0 : reportOrdinals.size();
+        EquipmentTimeline timeline = new EquipmentTimeline(idGadget, count);
+
+        // Sort by date and then by ordinal, packing both into a single long
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            int ordinal = reportOrdinals.get(i);
+            keys[i] = (reports.get(ordinal).getDate_report().toEpochDay() << 32) | ordinal;
+        }
+        Arrays.sort(keys);
+
+        for (long key : keys) {
+            int ordinal = (int) key;
+            Report report = reports.get(ordinal);
+            timeline.ordinals[timeline.size] = ordinal;
+            timeline.epochDays[timeline.size] = key >> 32;
+            timeline.size++;
+            timeline.count(report);
+        }
+        return timeline;
+    }
+
+    /**
+     * Adds a report to the timeline at the position of its date.
+     *
+     * @param ordinal The ordinal of the report
+     * @param report The report to add
+     */
+    void add(int ordinal, Report report) {
+        if (size == ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, size * 2);
+            epochDays = Arrays.copyOf(epochDays, size * 2);
+        }
+
+        // Place the report after every report with the same or an earlier date
+        long day = report.getDate_report().toEpochDay();
+        int position = size;
+        while (position > 0 && epochDays[position - 1] > day) {
+            position--;
+        }
+        System.arraycopy(ordinals, position, ordinals, position + 1, size - position);
+        System.arraycopy(epochDays, position, epochDays, position + 1, size - position);
+        ordinals[position] = ordinal;
+        epochDays[position] = day;
+        size++;
+
+        count(report);
+        summary = null;
+    }
+
+    /**
+     * Gets the number of reports in the timeline.
+     *
+     * @return The number of reports
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the ordinal of the report at a position of the timeline.
+     *
+     * @param index The position, where 0 is the earliest report
+     * @return The ordinal of the report
+     */
+    int ordinalAt(int index) {
+        return ordinals[index];
+    }
+
+    /**
+     * Gets the summary of the timeline, building it only if it changed since the last call.
+     *
+     * @return The summary of the equipment
+     */
+    EquipmentSummary summary() {
+        EquipmentSummary current = summary;
+        if (current == null) {
+            current = new EquipmentSummary(idGadget, severityCounts.clone(),
+                    size == 0 ? null : LocalDate.ofEpochDay(epochDays[0]),
+                    size == 0 ? null : LocalDate.ofEpochDay(epochDays[size - 1]),
+                    openReplacements);
+            summary = current;
+        }
+        return current;
+    }
+
+    /**
+     * Updates the running counts with a new report.
+     *
+     * @param report The new report
+     */
+    private void count(Report report) {
+        Severity severity = report.getSeverityType();
+        severityCounts[severity == null ? severityCounts.length - 1 : severity.ordinal()]++;
+        if (report instanceof Hardware && ((Hardware) report).isHasToReplace()) {
+            openReplacements++;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package model;
+
+import java.io.Serializable;
+
+/**
+ * Alert raised by an escalation rule when a new report completes one of its patterns.
+ * The {@link EscalationEngine} keeps the alerts of registered reports without the report,
+ * and gives them with the report read from the list of reports.
+ */
+public class EscalationAlert implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String rule;
+    private final Severity severity;
+    private final Report report;
+    private final String message;
+
+    /**
+     * Constructor for the EscalationAlert class.
+     *
+     * @param rule The name of the rule that raised the alert
+     * @param severity The severity the pattern should be treated as
+     * @param report The report that completed the pattern
+     * @param message A description of the pattern found
+     */
+    public EscalationAlert(String rule, Severity severity, Report report, String message) {
+        this.rule = rule;
+        this.severity = severity;
+        this.report = report;
+        this.message = message;
+    }
+
+    /**
+     * Gets a copy of the alert with another report.
+     *
+     * @param report The report that completed the pattern, or null to keep the alert without it
+     * @return A new alert with the same rule, severity and message
+     */
+    EscalationAlert withReport(Report report) {
+        return new EscalationAlert(rule, severity, report, message);
+    }
+
+    /**
+     * Gets the name of the rule that raised the alert.
+     *
+     * @return The name of the rule
+     */
+    public String getRule() {
+        return rule;
+    }
+
+    /**
+     * Gets the severity the pattern should be treated as.
+     *
+     * @return The escalated severity
+     */
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    /**
+     * Gets the report that completed the pattern.
+     *
+     * @return The report that raised the alert
+     */
+    public Report getReport() {
+        return report;
+    }
+
+    /**
+     * Gets a description of the pattern found.
+     *
+     * @return The message of the alert
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Gets the alert as a JSON object.
+     *
+     * @return A JSON object with the rule, severity, message and report
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(200);
+        json.append("{\"rule\":");
+        ReportJson.appendString(json, rule);
+        json.append(",\"severity\":\"").append(severity).append('"')
+                .append(",\"message\":");
+        ReportJson.appendString(json, message);
+        json.append(",\"report\":");
+        ReportJson.appendReport(json, report);
+        json.append('}');
+        return json.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "[" + severity + "] " + rule + ": " + message;
+    }
+}
@@ -0,0 +1,179 @@
+package model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Engine that evaluates a set of escalation rules on every new report.
+ * Each rule keeps its own incremental state, so a report costs O(1) per rule and the
+ * alerts are raised as the reports arrive instead of by scanning every report again.
+ * A report that is replaced or removed is taken back out of the state of the rules, and
+ * the alerts it raised are dropped; the alerts other reports raised are kept.
+ * The engine is serializable, so the Controller saves its state next to the data file
+ * instead of evaluating every report again on each start. The rules only keep the keys of
+ * their patterns, such as equipment IDs, dates and serial numbers, and the alerts raised by
+ * a registered report keep its ordinal instead of the report, so the saved state does not
+ * copy the reports of the data file; {@link #getAlerts(List)} reads them from the list of reports.
+ * The engine is not thread-safe; the Controller calls it while holding its write lock.
+ */
+public class EscalationEngine implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ArrayList<EscalationRule> rules;
+    private final ArrayList<EscalationAlert> alerts = new ArrayList<>();
+
+    // Ordinal of the report that raised each alert, or -1 if it was evaluated without one
+    private int[] alertOrdinals = new int[8];
+
+    /**
+     * Constructor for an EscalationEngine with the default rules:
+     * 3 or more MEDIO reports on the same equipment within 7 days are treated as ALTO,
+     * and a serial number flagged for replacement twice or more is treated as ALTO.
+     */
+    public EscalationEngine() {
+        this(List.of(
+                new RepeatedSeverityRule(Severity.MEDIO, 3, 7, Severity.ALTO),
+                new RepeatedReplacementRule(2, Severity.ALTO)));
+    }
+
+    /**
+     * Constructor for the EscalationEngine class.
+     *
+     * @param rules The rules to evaluate on every report
+     */
+    public EscalationEngine(List<EscalationRule> rules) {
+        this.rules = new ArrayList<>(rules);
+    }
+
+    /**
+     * Evaluates every rule on a new report and keeps the alerts raised.
+     *
+     * @param report The new report
+     * @return The alerts raised by the report, usually an empty list
+     */
+    public List<EscalationAlert> evaluate(Report report) {
+        return evaluate(report, -1);
+    }
+
+    /**
+     * Evaluates every rule on a new report and keeps the alerts raised with the ordinal of the report.
+     *
+     * @param report The new report
+     * @param ordinal The position of the report in the list of reports
+     * @return The alerts raised by the report, usually an empty list
+     */
+    List<EscalationAlert> evaluate(Report report, int ordinal) {
+        List<EscalationAlert> raised = Collections.emptyList();
+        for (EscalationRule rule : rules) {
+            EscalationAlert alert = rule.evaluate(report);
+            if (alert != null) {
+                if (raised.isEmpty()) {
+                    raised = new ArrayList<>(1);
+                }
+                raised.add(alert);
+                if (alerts.size() == alertOrdinals.length) {
+                    alertOrdinals = Arrays.copyOf(alertOrdinals, alerts.size() * 2);
+                }
+                alertOrdinals[alerts.size()] = ordinal;
+                alerts.add(ordinal < 0 ? alert : alert.withReport(null));
+            }
+        }
+        return raised;
+    }
+
+    /**
+     * Evaluates the new version of a replaced report: the old version is taken out of the
+     * rules and its alerts are dropped.
+     *
+     * @param existing The old version of the report
+     * @param replacement The new version of the report
+     * @param ordinal The position of the report in the list of reports
+     */
+    void replace(Report existing, Report replacement, int ordinal) {
+        retract(existing, ordinal, false);
+        evaluate(replacement, ordinal);
+    }
+
+    /**
+     * Takes a removed report out of the rules and drops its alerts. The ordinals of the
+     * alerts of the reports after it move one position back, as the reports do.
+     *
+     * @param report The removed report
+     * @param ordinal The position the report had in the list of reports
+     */
+    void remove(Report report, int ordinal) {
+        retract(report, ordinal, true);
+    }
+
+    /**
+     * Gets every alert raised so far. The alerts raised by {@link #evaluate(Report)} hold their
+     * report; those raised for a registered report hold none, see {@link #getAlerts(List)}.
+     *
+     * @return An unmodifiable list of the alerts, from the oldest to the newest
+     */
+    public List<EscalationAlert> getAlerts() {
+        return Collections.unmodifiableList(alerts);
+    }
+
+    /**
+     * Gets every alert raised so far, with the report of each alert read from the list of reports.
+     *
+     * @param reports The list of reports the ordinals of the alerts point into
+     * @return A new list of the alerts, from the oldest to the newest
+     */
+    List<EscalationAlert> getAlerts(List<Report> reports) {
+        List<EscalationAlert> resolved = new ArrayList<>(alerts.size());
+        for (int i = 0; i < alerts.size(); i++) {
+            int ordinal = alertOrdinals[i];
+            resolved.add(ordinal < 0 ? alerts.get(i) : alerts.get(i).withReport(reports.get(ordinal)));
+        }
+        return resolved;
+    }
+
+    /**
+     * Gets the rules evaluated by the engine.
+     *
+     * @return An unmodifiable list of the rules
+     */
+    public List<EscalationRule> getRules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * Forgets the state of every rule and every alert raised.
+     */
+    public void reset() {
+        for (EscalationRule rule : rules) {
+            rule.reset();
+        }
+        alerts.clear();
+    }
+
+    /**
+     * Takes a report out of every rule and drops the alerts it raised.
+     *
+     * @param report The report to take out
+     * @param ordinal The position of the report in the list of reports
+     * @param removed True if the reports after it moved one position back
+     */
+    private void retract(Report report, int ordinal, boolean removed) {
+        for (EscalationRule rule : rules) {
+            rule.retract(report);
+        }
+
+        int kept = 0;
+        for (int i = 0; i < alerts.size(); i++) {
+            int alertOrdinal = alertOrdinals[i];
+            if (alertOrdinal == ordinal) {
+                continue;
+            }
+            alertOrdinals[kept] = removed && alertOrdinal > ordinal ? alertOrdinal - 1 : alertOrdinal;
+            alerts.set(kept++, alerts.get(i));
+        }
+        alerts.subList(kept, alerts.size()).clear();
+    }
+}
@@ -0,0 +1,40 @@
+package model;
+
+import java.io.Serializable;
+
+/**
+ * Rule evaluated by the {@link EscalationEngine} on every new report.
+ * A rule keeps only the state it needs to recognize its pattern, so each
+ * report is evaluated without looking at the reports registered before it.
+ * Rules are serializable so their state can be saved next to the data file.
+ */
+public interface EscalationRule extends Serializable {
+
+    /**
+     * Gets the name of the rule, used in its alerts.
+     *
+     * @return The name of the rule
+     */
+    String getName();
+
+    /**
+     * Updates the state of the rule with a new report.
+     *
+     * @param report The new report
+     * @return The alert raised by the report, or null if the pattern is not complete
+     */
+    EscalationAlert evaluate(Report report);
+
+    /**
+     * Takes a report that was removed or replaced out of the state of the rule, so it no longer
+     * counts towards a pattern. Alerts already raised are not affected.
+     *
+     * @param report The report to take out
+     */
+    void retract(Report report);
+
+    /**
+     * Forgets every report seen so far.
+     */
+    void reset();
+}
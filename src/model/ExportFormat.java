@@ -0,0 +1,27 @@
+package model;
+
+/**
+ * Enumeration for the formats in which reports can be exported.
+ * Defined formats: TEXT (dash-delimited lines), CSV, JSON_LINES and BINARY (columnar).
+ */
+public enum ExportFormat {
+    TEXT, CSV, JSON_LINES, BINARY;
+
+    /**
+     * Creates the exporter that writes this format.
+     *
+     * @return A new exporter for this format
+     */
+    public ReportExporter createExporter() {
+        switch (this) {
+            case CSV:
+                return new CsvReportExporter();
+            case JSON_LINES:
+                return new JsonLinesReportExporter();
+            case BINARY:
+                return new BinaryColumnarReportExporter();
+            default:
+                return new TextReportExporter();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package model;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 
 /**
  * Class that represents a hardware report.
@@ -90,14 +92,41 @@ public class Hardware extends Report implements Serializable {
     }
 
     /**
-     * Gets the report information as a formatted string.
+     * Writes the hardware report information with dashes between fields.
      *
-     * @return A string with the hardware report information formatted with dashes between fields
+     * @param out The destination of the text
+     * @throws IOException If the destination cannot be written
      */
     @Override
-    public String getReportInfo() {
-        return id_gadget + "-" + description + "-" + severityType + "-" +
-                date_report.toString() + "-" + component_type + "-" +
-                serialNumber + "-" + (hasToReplace ? "Sí" : "No");
+    public void appendReportInfo(Appendable out) throws IOException {
+        appendCommonInfo(out);
+        out.append(String.valueOf(component_type)).append('-');
+        Utf8.appendInt(out, serialNumber);
+        out.append('-').append(hasToReplace ? "Sí" : "No");
+    }
+
+    /**
+     * Encodes the hardware report information as UTF-8 with dashes between fields.
+     *
+     * @param buffer The buffer that receives the bytes
+     */
+    @Override
+    public void writeReportInfo(ByteBuffer buffer) {
+        putCommonInfo(buffer);
+        Utf8.put(buffer, component_type);
+        buffer.put(Utf8.SEPARATOR);
+        Utf8.putInt(buffer, serialNumber);
+        buffer.put(Utf8.SEPARATOR);
+        buffer.put(hasToReplace ? Utf8.YES : Utf8.NO);
+    }
+
+    /**
+     * Gets the maximum number of bytes of the encoded hardware report information.
+     *
+     * @return The maximum number of bytes written by {@link #writeReportInfo(ByteBuffer)}
+     */
+    @Override
+    public int maxReportInfoBytes() {
+        return maxCommonInfoBytes() + Utf8.maxBytes(component_type) + Utf8.MAX_INT_BYTES + 2 + Utf8.YES.length;
     }
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package model;
+
+import java.io.Serializable;
+
+/**
+ * HyperLogLog cardinality sketch that estimates how many distinct strings were added.
+ * It uses a fixed number of one-byte registers regardless of how many values are added,
+ * with a standard error of about 1.04 / sqrt(registers), and two sketches with the same
+ * precision can be merged to estimate the distinct values of their union.
+ */
+public class HyperLogLog implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    public static final int DEFAULT_PRECISION = 12;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * Constructor for the HyperLogLog class with the default precision
+     * (4096 registers, about 1.6% standard error).
+     */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Constructor for the HyperLogLog class.
+     *
+     * @param precision The number of bits used to choose a register, from 4 to 16
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("La precisión debe estar entre 4 y 16.");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Adds a value to the sketch.
+     *
+     * @param value The value to add
+     */
+    public void add(String value) {
+        long hash = hash(value);
+        int index = (int) (hash >>> (64 - precision));
+        // The marker bit bounds the rank when the remaining bits are all zero
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Estimates the number of distinct values added.
+     *
+     * @return The estimated cardinality
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+
+        // Linear counting is more accurate while many registers are still empty
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Adds every value of another sketch to this one.
+     *
+     * @param other The sketch to merge, with the same precision
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Solo se pueden combinar sketches con la misma precisión.");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Creates a new sketch with the union of several sketches.
+     *
+     * @param sketches The sketches to combine, all with the default precision
+     * @return A new sketch with every value of the given ones
+     */
+    public static HyperLogLog union(Iterable<HyperLogLog> sketches) {
+        HyperLogLog result = new HyperLogLog();
+        for (HyperLogLog sketch : sketches) {
+            result.merge(sketch);
+        }
+        return result;
+    }
+
+    /**
+     * Computes a well-mixed 64-bit hash of a string (FNV-1a followed by the MurmurHash3 finalizer).
+     *
+     * @param value The string to hash
+     * @return The 64-bit hash
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
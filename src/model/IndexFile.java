@@ -0,0 +1,255 @@
+package model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Binary file with the Controller indexes, saved next to the data file so they do not
+ * have to be rebuilt on every start. The file is read whole into a heap buffer, and it is
+ * only used when its stamp matches the one of the loaded data file. It indexes the first
+ * reports of the data file; the reports appended after it was saved are indexed on load.
+ *
+ * <pre>
+ * file      = "RIDX" version:int stamp:long reports:int ids severities dates quarters components fingerprints
+ * ids       = count:int (key ordinals)*
+ * severities = (ordinals)*3, in the order of Severity
+ * dates     = count:int (epochDay:int ordinals)*
+ * quarters  = count:int (key (severity:byte counts))*, with the severities of each quarter ended by -1
+ * components = counts
+ * fingerprints = (exact:long bucket:long simHash:long)*, one per report, see DuplicateDetector
+ * counts    = count:int (key occurrences:int)*
+ * ordinals  = count:int ordinal:int*
+ * key       = length:int UTF-8 bytes
+ * </pre>
+ */
+class IndexFile {
+
+    private static final int MAGIC = 0x52494458;
+    private static final int FORMAT_VERSION = 3;
+
+    int reportCount;
+    Map<String, OrdinalList> indexById;
+    Map<Severity, OrdinalList> indexBySeverity;
+    NavigableMap<LocalDate, OrdinalList> indexByDate;
+    Map<String, Map<Severity, TopKCounter>> equipmentCountsByQuarter;
+    TopKCounter componentsToReplace;
+    long[] fingerprints;
+
+    /**
+     * Encodes the indexes in memory, so they can be written to the file without holding
+     * the lock of the Controller.
+     *
+     * @param stamp The stamp of the data file the indexes belong to
+     * @param reportCount The number of reports indexed
+     * @param index The indexes to encode
+     * @return The bytes of the file
+     */
+    static byte[] encode(long stamp, int reportCount, IndexFile index) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (WritableByteChannel channel = Channels.newChannel(bytes)) {
+            BufferedChannelWriter writer = new BufferedChannelWriter(channel);
+            writer.reserve(20).putInt(MAGIC).putInt(FORMAT_VERSION).putLong(stamp).putInt(reportCount);
+
+            writer.reserve(4).putInt(index.indexById.size());
+            for (Map.Entry<String, OrdinalList> entry : index.indexById.entrySet()) {
+                putKey(writer, entry.getKey());
+                putOrdinals(writer, entry.getValue());
+            }
+
+            for (Severity severity : Severity.values()) {
+                putOrdinals(writer, index.indexBySeverity.getOrDefault(severity, new OrdinalList()));
+            }
+
+            writer.reserve(4).putInt(index.indexByDate.size());
+            for (Map.Entry<LocalDate, OrdinalList> entry : index.indexByDate.entrySet()) {
+                writer.reserve(4).putInt((int) entry.getKey().toEpochDay());
+                putOrdinals(writer, entry.getValue());
+            }
+
+            writer.reserve(4).putInt(index.equipmentCountsByQuarter.size());
+            for (Map.Entry<String, Map<Severity, TopKCounter>> quarter : index.equipmentCountsByQuarter.entrySet()) {
+                putKey(writer, quarter.getKey());
+                for (Map.Entry<Severity, TopKCounter> counter : quarter.getValue().entrySet()) {
+                    writer.reserve(1).put((byte) counter.getKey().ordinal());
+                    putCounts(writer, counter.getValue());
+                }
+                writer.reserve(1).put((byte) -1);
+            }
+
+            putCounts(writer, index.componentsToReplace);
+
+            for (int i = 0; i < reportCount * 3; i++) {
+                writer.reserve(8).putLong(index.fingerprints[i]);
+            }
+            writer.flush();
+        } catch (IOException e) {
+            // Writing to memory does not fail
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the indexes from a file into a heap buffer. No mapping is left open, so the
+     * file can be replaced right after on every platform.
+     *
+     * @param path The path of the file
+     * @param stamp The stamp of the loaded data file
+     * @param maxReportCount The number of loaded reports
+     * @return The indexes, or null if the file is missing, has another format, belongs to other
+     * data or indexes more reports than were loaded
+     * @throws IOException If an error occurs while reading
+     */
+    static IndexFile read(Path path, long stamp, int maxReportCount) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Read until the buffer is full or the file ends
+            }
+            buffer.flip();
+            if (buffer.remaining() < 20 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION
+                    || buffer.getLong() != stamp) {
+                return null;
+            }
+            int reportCount = buffer.getInt();
+            if (reportCount > maxReportCount) {
+                return null;
+            }
+
+            IndexFile index = new IndexFile();
+            index.reportCount = reportCount;
+            index.indexById = new LinkedHashMap<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                index.indexById.put(getKey(buffer), getOrdinals(buffer));
+            }
+
+            index.indexBySeverity = new EnumMap<>(Severity.class);
+            for (Severity severity : Severity.values()) {
+                OrdinalList ordinals = getOrdinals(buffer);
+                if (ordinals.size() > 0) {
+                    index.indexBySeverity.put(severity, ordinals);
+                }
+            }
+
+            index.indexByDate = new TreeMap<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                index.indexByDate.put(LocalDate.ofEpochDay(buffer.getInt()), getOrdinals(buffer));
+            }
+
+            index.equipmentCountsByQuarter = new HashMap<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                Map<Severity, TopKCounter> bySeverity = new EnumMap<>(Severity.class);
+                index.equipmentCountsByQuarter.put(getKey(buffer), bySeverity);
+                for (byte severity = buffer.get(); severity >= 0; severity = buffer.get()) {
+                    bySeverity.put(Severity.values()[severity], getCounts(buffer));
+                }
+            }
+
+            index.componentsToReplace = getCounts(buffer);
+
+            index.fingerprints = new long[reportCount * 3];
+            buffer.asLongBuffer().get(index.fingerprints);
+            return index;
+        }
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 key.
+     *
+     * @param writer The writer that receives the bytes
+     * @param key The key to write
+     * @throws IOException If an error occurs while writing
+     */
+    private static void putKey(BufferedChannelWriter writer, String key) throws IOException {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        writer.reserve(4 + bytes.length).putInt(bytes.length).put(bytes);
+    }
+
+    /**
+     * Writes a count-prefixed list of ordinals.
+     *
+     * @param writer The writer that receives the bytes
+     * @param ordinals The ordinals to write
+     * @throws IOException If an error occurs while writing
+     */
+    private static void putOrdinals(BufferedChannelWriter writer, OrdinalList ordinals) throws IOException {
+        writer.reserve(4).putInt(ordinals.size());
+        for (int i = 0; i < ordinals.size(); i++) {
+            writer.reserve(4).putInt(ordinals.get(i));
+        }
+    }
+
+    /**
+     * Writes the keys of a counter with their occurrences.
+     *
+     * @param writer The writer that receives the bytes
+     * @param counter The counter to write
+     * @throws IOException If an error occurs while writing
+     */
+    private static void putCounts(BufferedChannelWriter writer, TopKCounter counter) throws IOException {
+        writer.reserve(4).putInt(counter.size());
+        for (Map.Entry<String, int[]> entry : counter.counts().entrySet()) {
+            putKey(writer, entry.getKey());
+            writer.reserve(4).putInt(entry.getValue()[0]);
+        }
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 key.
+     *
+     * @param buffer The buffer to read from
+     * @return The key
+     */
+    private static String getKey(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a count-prefixed list of ordinals with a single bulk copy.
+     *
+     * @param buffer The buffer to read from
+     * @return The ordinals
+     */
+    private static OrdinalList getOrdinals(ByteBuffer buffer) {
+        int[] ordinals = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(ordinals);
+        buffer.position(buffer.position() + ordinals.length * 4);
+        return new OrdinalList(ordinals);
+    }
+
+    /**
+     * Reads the keys of a counter with their occurrences.
+     *
+     * @param buffer The buffer to read from
+     * @return The counter
+     */
+    private static TopKCounter getCounts(ByteBuffer buffer) {
+        TopKCounter counter = new TopKCounter();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            counter.add(getKey(buffer), buffer.getInt());
+        }
+        return counter;
+    }
+}
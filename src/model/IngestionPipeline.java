@@ -0,0 +1,425 @@
+package model;
+
+import exceptions.DuplicateReportException;
+import exceptions.ReportException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Staged pipeline that ingests reports from text lines into a Controller.
+ * The stages are parse, validation, construction, index update and persistence. Each one
+ * runs on its own virtual thread and they are connected by bounded queues, so a full queue
+ * blocks the previous stage instead of growing without limit. The persistence stage appends
+ * each batch of queued reports to the data file, which lets a slow disk fall behind without
+ * stalling parsing. A line that fails in any stage is rejected on its own, and the rest of
+ * the input keeps flowing.
+ *
+ * <p>Each line has the fields separated by semicolons:</p>
+ * <pre>
+ * HARDWARE;id;description;severity;YYYY/MM/DD;component;serialNumber;S|N
+ * SOFTWARE;id;description;severity;YYYY/MM/DD;systemOperation;softwareName;A.B.C
+ * </pre>
+ */
+public class IngestionPipeline implements AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final int FIELD_COUNT = 8;
+
+    private final Controller controller;
+    private final ExecutorService executor;
+    private final List<Stage<?, ?>> stages;
+    private final Stage<String, String[]> firstStage;
+    private final List<String> rejectedLines;
+    private final AtomicLong lineCounter;
+    private final long startNanos;
+
+    // Submissions hold the read lock, so close() sends the end of the input after the last of them
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    /**
+     * Constructor for the IngestionPipeline class with the default queue capacity.
+     *
+     * @param controller The controller that receives the reports
+     */
+    public IngestionPipeline(Controller controller) {
+        this(controller, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructor for the IngestionPipeline class.
+     * Starts one virtual thread per stage.
+     *
+     * @param controller The controller that receives the reports
+     * @param queueCapacity The capacity of the queue in front of each stage
+     */
+    public IngestionPipeline(Controller controller, int queueCapacity) {
+        this.controller = controller;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.rejectedLines = Collections.synchronizedList(new ArrayList<>());
+        this.lineCounter = new AtomicLong();
+        this.startNanos = System.nanoTime();
+
+        Stage<Report, Report> persist = new Stage<>("Persistencia", queueCapacity, null, report -> report, true);
+        Stage<Report, Report> index = new Stage<>("Indexación", queueCapacity, persist, this::index, false);
+        Stage<ValidatedFields, Report> build = new Stage<>("Construcción", queueCapacity, index,
+                IngestionPipeline::build, false);
+        Stage<String[], ValidatedFields> validate = new Stage<>("Validación", queueCapacity, build,
+                IngestionPipeline::validate, false);
+        this.firstStage = new Stage<>("Análisis", queueCapacity, validate, IngestionPipeline::parse, false);
+
+        this.stages = List.of(firstStage, validate, build, index, persist);
+        for (Stage<?, ?> stage : stages) {
+            executor.execute(stage);
+        }
+    }
+
+    /**
+     * Submits a line to the pipeline, blocking while the first queue is full.
+     * Lines submitted this way are numbered in the order they are submitted, so it suits a
+     * single source; lines read from several sources should be submitted with their own numbers.
+     *
+     * @param line The line with the report fields
+     * @throws InterruptedException If the thread is interrupted while waiting for space
+     */
+    public void submit(String line) throws InterruptedException {
+        submit(null, lineCounter.incrementAndGet(), line);
+    }
+
+    /**
+     * Submits a line read from a source to the pipeline, blocking while the first queue is full.
+     * A rejected line is reported with its source and line number.
+     *
+     * @param source The name of the source of the line, such as a file name
+     * @param lineNumber The number of the line inside its source
+     * @param line The line with the report fields
+     * @throws InterruptedException If the thread is interrupted while waiting for space
+     */
+    public void submit(String source, long lineNumber, String line) throws InterruptedException {
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("El proceso de ingesta ya fue cerrado.");
+            }
+            firstStage.input.put(new Item<>(source, lineNumber, line));
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Signals the end of the input and waits until every submitted line is persisted.
+     * If the thread is interrupted, it keeps waiting and its interrupt status is set on return.
+     */
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+
+        boolean interrupted = putEnd(firstStage.input);
+        executor.shutdown();
+        while (true) {
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the counters of every stage, in pipeline order.
+     *
+     * @return A list with one snapshot per stage
+     */
+    public List<StageStats> getStageStats() {
+        double seconds = Math.max((System.nanoTime() - startNanos) / 1e9, 1e-9);
+        List<StageStats> stats = new ArrayList<>();
+        for (Stage<?, ?> stage : stages) {
+            long processed = stage.processed.get();
+            stats.add(new StageStats(stage.name, processed, stage.rejected.get(),
+                    stage.input.size(), processed / seconds));
+        }
+        return stats;
+    }
+
+    /**
+     * Gets the rejected lines with the reason of each rejection.
+     *
+     * @return A copy of the list of rejection messages
+     */
+    public List<String> getRejectedLines() {
+        synchronized (rejectedLines) {
+            return new ArrayList<>(rejectedLines);
+        }
+    }
+
+    /**
+     * Splits a line into its fields.
+     *
+     * @param line The line to parse
+     * @return The fields of the line
+     * @throws ReportException If the line does not have the expected fields
+     */
+    private static String[] parse(String line) throws ReportException {
+        String[] fields = line.split(";", -1);
+        if (fields.length != FIELD_COUNT) {
+            throw new ReportException("Se esperaban " + FIELD_COUNT + " campos y se encontraron " + fields.length + ".");
+        }
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = fields[i].trim();
+        }
+        if (!fields[0].equalsIgnoreCase("HARDWARE") && !fields[0].equalsIgnoreCase("SOFTWARE")) {
+            throw new ReportException("Tipo de reporte inválido: " + fields[0] + ".");
+        }
+        return fields;
+    }
+
+    /**
+     * Runs the Validator checks over the fields of a line.
+     *
+     * @param fields The fields of the line
+     * @return The validated values
+     * @throws ReportException If any of the fields is invalid
+     */
+    private static ValidatedFields validate(String[] fields) throws ReportException {
+        boolean hardware = fields[0].equalsIgnoreCase("HARDWARE");
+        Severity severity = Validator.validateSeverity(fields[3]);
+        LocalDate date;
+        try {
+            date = Validator.validateDate(fields[4]);
+        } catch (DateTimeParseException e) {
+            throw new ReportException("Formato de fecha inválido. Use el formato YYYY/MM/DD.");
+        }
+
+        int serialNumber = 0;
+        if (hardware) {
+            serialNumber = Validator.validateSerialNumber(fields[6]);
+        } else {
+            Validator.validateVersionFormat(fields[7]);
+        }
+        return new ValidatedFields(hardware, fields, severity, date, serialNumber);
+    }
+
+    /**
+     * Builds the Hardware or Software report from validated values.
+     *
+     * @param values The validated values
+     * @return The new report
+     */
+    private static Report build(ValidatedFields values) {
+        String[] fields = values.fields;
+        if (values.hardware) {
+            return new Hardware(fields[1], fields[2], values.severity, values.date,
+                    fields[5], values.serialNumber, fields[7].equalsIgnoreCase("S"));
+        }
+        return new Software(fields[1], fields[2], values.severity, values.date,
+                fields[5], fields[6], fields[7]);
+    }
+
+    /**
+     * Adds a report to the controller indexes without saving it.
+     *
+     * @param report The report to add
+     * @return The same report, for the persistence stage
+     * @throws DuplicateReportException If the controller rejects the report as a duplicate
+     */
+    private Report index(Report report) throws DuplicateReportException {
+        controller.addReportWithoutSaving(report);
+        return report;
+    }
+
+    /**
+     * Puts the end of the input in a queue, waiting for space even if the thread is interrupted.
+     *
+     * @param queue The queue of a stage
+     * @param <T> The type of the values of the queue
+     * @return True if the thread was interrupted while waiting
+     */
+    private static <T> boolean putEnd(BlockingQueue<Item<T>> queue) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(new Item<>(null, -1, null));
+                return interrupted;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+    }
+
+    /**
+     * Operation performed by a stage over each item.
+     *
+     * @param <I> The input type
+     * @param <O> The output type
+     */
+    private interface Step<I, O> {
+        O apply(I value) throws ReportException;
+    }
+
+    /**
+     * Line travelling through the pipeline. A null value marks the end of the input.
+     *
+     * @param <T> The type of the value
+     */
+    private static final class Item<T> {
+        private final String source;
+        private final long line;
+        private final T value;
+
+        private Item(String source, long line, T value) {
+            this.source = source;
+            this.line = line;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Values of a line after the Validator checks.
+     */
+    private static final class ValidatedFields {
+        private final boolean hardware;
+        private final String[] fields;
+        private final Severity severity;
+        private final LocalDate date;
+        private final int serialNumber;
+
+        private ValidatedFields(boolean hardware, String[] fields, Severity severity,
+                                LocalDate date, int serialNumber) {
+            this.hardware = hardware;
+            this.fields = fields;
+            this.severity = severity;
+            this.date = date;
+            this.serialNumber = serialNumber;
+        }
+    }
+
+    /**
+     * Stage of the pipeline: takes items from its queue, applies its step and
+     * hands the result to the next stage.
+     *
+     * @param <I> The input type
+     * @param <O> The output type
+     */
+    private final class Stage<I, O> implements Runnable {
+        private final String name;
+        private final BlockingQueue<Item<I>> input;
+        private final Stage<O, ?> next;
+        private final Step<I, O> step;
+        private final boolean persistBatches;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        private Stage(String name, int queueCapacity, Stage<O, ?> next, Step<I, O> step, boolean persistBatches) {
+            this.name = name;
+            this.input = new ArrayBlockingQueue<>(queueCapacity);
+            this.next = next;
+            this.step = step;
+            this.persistBatches = persistBatches;
+        }
+
+        @Override
+        public void run() {
+            List<Item<I>> batch = new ArrayList<>();
+            try {
+                boolean finished = false;
+                while (!finished) {
+                    batch.add(input.take());
+                    if (persistBatches) {
+                        input.drainTo(batch);
+                    }
+
+                    int completed = 0;
+                    for (Item<I> item : batch) {
+                        if (item.value == null) {
+                            finished = true;
+                            break;
+                        }
+                        if (process(item)) {
+                            completed++;
+                        }
+                    }
+                    batch.clear();
+
+                    // Save once for the whole batch, then account for it
+                    if (persistBatches && completed > 0) {
+                        try {
+                            controller.saveReports();
+                        } catch (RuntimeException e) {
+                            System.err.println("Error saving data: " + e.getMessage());
+                        }
+                    }
+                    processed.addAndGet(completed);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // The next stage always gets the end of the input, so close() does not wait forever
+                if (next != null && putEnd(next.input)) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /**
+         * Applies the step to one item and forwards the result.
+         *
+         * @param item The item to process
+         * @return True if the item was completed, false if it was rejected
+         * @throws InterruptedException If the thread is interrupted while waiting for space
+         */
+        private boolean process(Item<I> item) throws InterruptedException {
+            O result;
+            try {
+                result = step.apply(item.value);
+            } catch (ReportException e) {
+                reject(item, e.getMessage());
+                return false;
+            } catch (RuntimeException e) {
+                reject(item, "Error inesperado: " + e);
+                return false;
+            }
+
+            if (next != null) {
+                next.input.put(new Item<>(item.source, item.line, result));
+            }
+            return true;
+        }
+
+        /**
+         * Counts an item as rejected and records the reason with the source and number of its line.
+         *
+         * @param item The rejected item
+         * @param reason The reason of the rejection
+         */
+        private void reject(Item<I> item, String reason) {
+            rejected.incrementAndGet();
+            String line = item.source == null ? "Línea " + item.line : item.source + ", línea " + item.line;
+            rejectedLines.add(line + ": " + reason);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Exporter for the JSON Lines format: one JSON object per report and per line,
+ * with the same fields as {@link ReportJson}. The title is not written.
+ */
+public class JsonLinesReportExporter implements ReportExporter {
+
+    /**
+     * Gets the extension of the JSON Lines files.
+     *
+     * @return The "jsonl" extension
+     */
+    @Override
+    public String getFileExtension() {
+        return "jsonl";
+    }
+
+    /**
+     * Writes one JSON object per report and per line.
+     *
+     * @param title The title of the export, not written in this format
+     * @param reports The reports to write
+     * @param channel The channel that receives the exported bytes
+     * @throws IOException If an error occurs while writing
+     */
+    @Override
+    public void export(String title, Iterable<Report> reports, WritableByteChannel channel) throws IOException {
+        BufferedChannelWriter writer = new BufferedChannelWriter(channel);
+        StringBuilder line = new StringBuilder(256);
+
+        for (Report report : reports) {
+            line.setLength(0);
+            ReportJson.appendReport(line, report);
+
+            ByteBuffer buffer = writer.reserve(line.length() * 3 + 1);
+            Utf8.put(buffer, line);
+            buffer.put((byte) '\n');
+        }
+        writer.flush();
+    }
+}
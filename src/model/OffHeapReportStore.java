@@ -0,0 +1,332 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * List of reports stored outside the Java heap, in direct byte buffers.
+ * Each report has a fixed-size header addressed by its ordinal, holding the numeric fields
+ * and the location of its text fields in a separate string arena. The heap only holds the
+ * buffers themselves, so its size and the garbage collection pauses do not grow with the
+ * number of reports.
+ *
+ * <p>{@link #get(int)} decodes a new Report object on every call, which makes this list a
+ * view: changing a returned report does not change the stored one, and reports must be
+ * compared by content rather than by identity. Replacing a report appends its new text
+ * fields to the arena, and the space of replaced and removed reports is only reclaimed by
+ * {@link #compactIfWasteful()}, which the Controller calls when it updates or removes a report.
+ * Removing a report moves every later header one position back, so it costs O(n).</p>
+ *
+ * <p>Only the reports themselves leave the heap. The Controller still keeps on the heap, with a
+ * size that grows with the number of reports: the ordinal lists of its indexes, the duplicate
+ * fingerprints (three longs and one int per report), the escalation state, and while starting,
+ * the whole index file and its fingerprints. These are primitive arrays with no object per
+ * report, so they add little garbage collection work, but they are not constant.</p>
+ *
+ * <p>The header starts with the fixed part of a {@link ReportCodec} record and the arena holds
+ * its text fields, so {@link #addRecord} and {@link #getRecord} copy whole records to and from
+ * the data file without decoding them. Header layout, 24 bytes per report:</p>
+ * <pre>
+ * byte  type (0 Hardware, 1 Software)
+ * byte  severity ordinal, or -1 for none
+ * byte  hasToReplace (1 or 0)
+ * byte  unused
+ * int   serialNumber
+ * int   date as epoch day, or Integer.MIN_VALUE for none
+ * int   length of the text fields in the arena
+ * long  location of the text fields (arena chunk in the high half, position in the low half)
+ * </pre>
+ * The text fields are id_gadget, description and the two or three type-specific strings,
+ * each as an int byte length (-1 for null) followed by its UTF-8 bytes.
+ */
+public final class OffHeapReportStore extends AbstractList<Report> implements RandomAccess {
+
+    private static final int HEADER_BYTES = 24;
+    private static final int HEADERS_PER_CHUNK = 1 << 16;
+    private static final int ARENA_CHUNK_BYTES = 16 << 20;
+
+    private final List<ByteBuffer> headerChunks = new ArrayList<>();
+    private final List<ByteBuffer> arenaChunks = new ArrayList<>();
+    private int size;
+    private long arenaBytes;
+
+    // Arena bytes of the text fields of the reports in the list, without replaced or removed ones
+    private long liveBytes;
+
+    /**
+     * Constructor for an empty OffHeapReportStore.
+     */
+    public OffHeapReportStore() {
+    }
+
+    /**
+     * Constructor for an OffHeapReportStore with a copy of some reports.
+     *
+     * @param reports The reports to copy, in order
+     */
+    public OffHeapReportStore(List<Report> reports) {
+        for (Report report : reports) {
+            add(report);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Report get(int index) {
+        checkIndex(index, size);
+        ByteBuffer headers = headerChunk(index);
+        int at = headerPosition(index);
+        long location = headers.getLong(at + 16);
+        return ReportCodec.get(headers, at, arenaChunks.get((int) (location >>> 32)), (int) location);
+    }
+
+    @Override
+    public boolean add(Report report) {
+        ensureHeader();
+        writeHeader(size, report);
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Appends a report from its encoded record, copying the bytes without decoding them.
+     *
+     * @param record The buffer with the record
+     * @param at The position of the record in the buffer
+     * @param length The length of the record
+     */
+    void addRecord(ByteBuffer record, int at, int length) {
+        int stringsLength = length - ReportCodec.FIXED_BYTES;
+        ByteBuffer arena = arenaWithRoom(stringsLength);
+        long location = ((long) (arenaChunks.size() - 1) << 32) | arena.position();
+        arena.put(arena.position(), record, at + ReportCodec.FIXED_BYTES, stringsLength);
+        arena.position(arena.position() + stringsLength);
+        arenaBytes += stringsLength;
+        liveBytes += stringsLength;
+
+        ensureHeader();
+        ByteBuffer headers = headerChunk(size);
+        int header = headerPosition(size);
+        headers.put(header, record, at, ReportCodec.FIXED_BYTES);
+        headers.putInt(header + 12, stringsLength);
+        headers.putLong(header + 16, location);
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Gets the length of the encoded record of a report.
+     *
+     * @param index The ordinal of the report
+     * @return The length of its record
+     */
+    int recordLength(int index) {
+        checkIndex(index, size);
+        return ReportCodec.FIXED_BYTES + headerChunk(index).getInt(headerPosition(index) + 12);
+    }
+
+    /**
+     * Copies the encoded record of a report to the position of a buffer without decoding it.
+     *
+     * @param index The ordinal of the report
+     * @param out The buffer that receives the record, with at least {@link #recordLength(int)} bytes left
+     */
+    void getRecord(int index, ByteBuffer out) {
+        checkIndex(index, size);
+        ByteBuffer headers = headerChunk(index);
+        int at = headerPosition(index);
+        int stringsLength = headers.getInt(at + 12);
+        long location = headers.getLong(at + 16);
+
+        int start = out.position();
+        out.put(start, headers, at, ReportCodec.FIXED_BYTES);
+        out.put(start + ReportCodec.FIXED_BYTES, arenaChunks.get((int) (location >>> 32)), (int) location, stringsLength);
+        out.position(start + ReportCodec.FIXED_BYTES + stringsLength);
+    }
+
+    @Override
+    public Report set(int index, Report report) {
+        checkIndex(index, size);
+        Report previous = get(index);
+        liveBytes -= headerChunk(index).getInt(headerPosition(index) + 12);
+        writeHeader(index, report);
+        return previous;
+    }
+
+    @Override
+    public Report remove(int index) {
+        checkIndex(index, size);
+        Report removed = get(index);
+        liveBytes -= headerChunk(index).getInt(headerPosition(index) + 12);
+
+        // Move every later header one position back, one block per chunk; the arena bytes are left in place
+        int chunk = index / HEADERS_PER_CHUNK;
+        int from = headerPosition(index);
+        while (true) {
+            ByteBuffer headers = headerChunks.get(chunk);
+            int chunkEnd = (chunk + 1) * HEADERS_PER_CHUNK;
+            int end = (Math.min(size, chunkEnd) - chunk * HEADERS_PER_CHUNK) * HEADER_BYTES;
+            headers.put(from, headers, from + HEADER_BYTES, end - from - HEADER_BYTES);
+            if (size <= chunkEnd) {
+                break;
+            }
+            // The first header of the next chunk moves to the last slot of this one
+            headers.put(end - HEADER_BYTES, headerChunks.get(chunk + 1), 0, HEADER_BYTES);
+            chunk++;
+            from = 0;
+        }
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        headerChunks.clear();
+        arenaChunks.clear();
+        size = 0;
+        arenaBytes = 0;
+        liveBytes = 0;
+        modCount++;
+    }
+
+    /**
+     * Copies the text fields of every report to new arena chunks, leaving out those of replaced
+     * and removed reports, once they take more space than the live ones. Compacting only then
+     * keeps its cost proportional to the updates and removals that made the space free.
+     * The old chunks are freed when the garbage collector reclaims their buffers.
+     * Must not run while the list is being read.
+     *
+     * @return True if the arena was compacted
+     */
+    boolean compactIfWasteful() {
+        if (arenaBytes - liveBytes <= Math.max(liveBytes, ARENA_CHUNK_BYTES)) {
+            return false;
+        }
+
+        List<ByteBuffer> oldChunks = new ArrayList<>(arenaChunks);
+        arenaChunks.clear();
+        arenaBytes = 0;
+        for (int i = 0; i < size; i++) {
+            ByteBuffer headers = headerChunk(i);
+            int at = headerPosition(i);
+            int length = headers.getInt(at + 12);
+            long location = headers.getLong(at + 16);
+
+            ByteBuffer arena = arenaWithRoom(length);
+            headers.putLong(at + 16, ((long) (arenaChunks.size() - 1) << 32) | arena.position());
+            arena.put(arena.position(), oldChunks.get((int) (location >>> 32)), (int) location, length);
+            arena.position(arena.position() + length);
+            arenaBytes += length;
+        }
+        liveBytes = arenaBytes;
+        return true;
+    }
+
+    /**
+     * Gets the number of bytes reserved outside the heap.
+     *
+     * @return The bytes of every header and arena chunk
+     */
+    public long getReservedBytes() {
+        long reserved = (long) headerChunks.size() * HEADERS_PER_CHUNK * HEADER_BYTES;
+        for (ByteBuffer chunk : arenaChunks) {
+            reserved += chunk.capacity();
+        }
+        return reserved;
+    }
+
+    /**
+     * Gets the number of arena bytes used by text fields, including replaced ones.
+     *
+     * @return The used arena bytes
+     */
+    public long getArenaBytes() {
+        return arenaBytes;
+    }
+
+    /**
+     * Encodes a report into the header of an ordinal and appends its text fields to the arena.
+     *
+     * @param index The ordinal of the header
+     * @param report The report to store
+     */
+    private void writeHeader(int index, Report report) {
+        ByteBuffer arena = arenaWithRoom(ReportCodec.maxBytes(report) - ReportCodec.FIXED_BYTES);
+        long location = ((long) (arenaChunks.size() - 1) << 32) | arena.position();
+        int length = ReportCodec.putStrings(report, arena);
+        arenaBytes += length;
+        liveBytes += length;
+
+        ByteBuffer headers = headerChunk(index);
+        int at = headerPosition(index);
+        ReportCodec.putFixed(report, headers, at);
+        headers.putInt(at + 12, length);
+        headers.putLong(at + 16, location);
+    }
+
+    /**
+     * Adds a header chunk if the next ordinal does not fit in the current ones.
+     */
+    private void ensureHeader() {
+        if (size == headerChunks.size() * HEADERS_PER_CHUNK) {
+            headerChunks.add(ByteBuffer.allocateDirect(HEADERS_PER_CHUNK * HEADER_BYTES));
+        }
+    }
+
+    /**
+     * Gets the arena chunk that receives the next text fields, starting a new chunk if they
+     * may not fit in the current one. Fields larger than a chunk get a chunk of their own.
+     *
+     * @param bytes The maximum number of bytes that will be appended
+     * @return The last arena chunk, positioned at its first free byte
+     */
+    private ByteBuffer arenaWithRoom(int bytes) {
+        ByteBuffer arena = arenaChunks.isEmpty() ? null : arenaChunks.get(arenaChunks.size() - 1);
+        if (arena == null || arena.remaining() < bytes) {
+            arena = ByteBuffer.allocateDirect(Math.max(ARENA_CHUNK_BYTES, bytes));
+            arenaChunks.add(arena);
+        }
+        return arena;
+    }
+
+    /**
+     * Gets the header chunk that holds an ordinal.
+     *
+     * @param index The ordinal
+     * @return The chunk of the header
+     */
+    private ByteBuffer headerChunk(int index) {
+        return headerChunks.get(index / HEADERS_PER_CHUNK);
+    }
+
+    /**
+     * Gets the position of the header of an ordinal inside its chunk.
+     *
+     * @param index The ordinal
+     * @return The byte position of the header
+     */
+    private static int headerPosition(int index) {
+        return (index % HEADERS_PER_CHUNK) * HEADER_BYTES;
+    }
+
+    /**
+     * Checks that an ordinal is inside the list.
+     *
+     * @param index The ordinal
+     * @param size The size of the list
+     */
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Índice " + index + " fuera del rango 0.." + size);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive int values used by the Controller indexes.
+ * Each value is the ordinal (position) of a report inside the list of reports,
+ * which avoids boxing and keeps the indexes compact.
+ */
+class OrdinalList {
+
+    private int[] values;
+    private int size;
+
+    /**
+     * Constructor for the OrdinalList class.
+     * Creates an empty list with a small initial capacity.
+     */
+    OrdinalList() {
+        values = new int[4];
+    }
+
+    /**
+     * Constructor that wraps an existing array of ordinals.
+     *
+     * @param values The ordinals to wrap (the array is not copied)
+     */
+    OrdinalList(int[] values) {
+        this.values = values;
+        this.size = values.length;
+    }
+
+    /**
+     * Appends an ordinal at the end of the list.
+     *
+     * @param ordinal The ordinal to append
+     */
+    void add(int ordinal) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(4, size * 2));
+        }
+        values[size++] = ordinal;
+    }
+
+    /**
+     * Removes the ordinal at a position, moving the later ones one position back.
+     *
+     * @param index The position inside this list
+     */
+    void remove(int index) {
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+    }
+
+    /**
+     * Gets the ordinal stored at a position.
+     *
+     * @param index The position inside this list
+     * @return The ordinal at that position
+     */
+    int get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Gets the number of ordinals in the list.
+     *
+     * @return The size of the list
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Copies the ordinals into a new array of the exact size.
+     *
+     * @return A new array with the ordinals of this list
+     */
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
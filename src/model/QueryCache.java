@@ -0,0 +1,178 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Bounded cache for the results of the Controller queries, stored as the ordinals of the
+ * matching reports inside the list of reports.
+ * Entries are evicted in least-recently-used order and are invalidated only when a new
+ * report would change their result: a query by equipment ID or severity when the report
+ * has that ID or severity, and a query since a date when the report is on or after it.
+ */
+public class QueryCache {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * Kinds of cached queries.
+     */
+    enum Kind {
+        ID, SEVERITY, SINCE
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<Key, int[]> entries;
+    private final NavigableSet<LocalDate> cachedSinceDates;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructor for the QueryCache class.
+     *
+     * @param capacity The maximum number of cached results
+     */
+    public QueryCache(int capacity) {
+        this.capacity = capacity;
+        this.cachedSinceDates = new TreeSet<>();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, int[]> eldest) {
+                if (size() <= QueryCache.this.capacity) {
+                    return false;
+                }
+                if (eldest.getKey().kind == Kind.SINCE) {
+                    cachedSinceDates.remove((LocalDate) eldest.getKey().value);
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Gets a cached result and records the hit or miss.
+     *
+     * @param kind The kind of query
+     * @param value The query parameter
+     * @return The ordinals of the cached result, or null if it is not cached
+     */
+    synchronized int[] get(Kind kind, Object value) {
+        int[] result = entries.get(new Key(kind, value));
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    /**
+     * Stores the result of a query.
+     *
+     * @param kind The kind of query
+     * @param value The query parameter
+     * @param result The ordinals of the result to cache, which must not be modified afterwards
+     */
+    synchronized void put(Kind kind, Object value, int[] result) {
+        if (capacity <= 0) {
+            return;
+        }
+        if (kind == Kind.SINCE) {
+            cachedSinceDates.add((LocalDate) value);
+        }
+        entries.put(new Key(kind, value), result);
+    }
+
+    /**
+     * Removes the cached results that a new report would change.
+     *
+     * @param report The report that is being added
+     */
+    synchronized void invalidate(Report report) {
+        entries.remove(new Key(Kind.ID, report.getId_gadget()));
+        entries.remove(new Key(Kind.SEVERITY, report.getSeverityType()));
+
+        // Every query since a date on or before the report date now has one more result
+        NavigableSet<LocalDate> affected = cachedSinceDates.headSet(report.getDate_report(), true);
+        for (LocalDate date : affected) {
+            entries.remove(new Key(Kind.SINCE, date));
+        }
+        affected.clear();
+    }
+
+    /**
+     * Removes every cached result.
+     */
+    synchronized void clear() {
+        entries.clear();
+        cachedSinceDates.clear();
+    }
+
+    /**
+     * Gets the number of queries answered from the cache.
+     *
+     * @return The number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of queries that had to be computed.
+     *
+     * @return The number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the fraction of queries answered from the cache.
+     *
+     * @return The hit rate between 0 and 1, or 0 if no query was made
+     */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Gets the number of cached results.
+     *
+     * @return The number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Cache key made of the kind of query and its parameter.
+     */
+    private static final class Key {
+        private final Kind kind;
+        private final Object value;
+
+        private Key(Kind kind, Object value) {
+            this.kind = kind;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return kind == key.kind && Objects.equals(value, key.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * kind.hashCode() + Objects.hashCode(value);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package model;
+
+import java.util.HashMap;
+
+/**
+ * Rule that raises an alert when the same component serial number is flagged
+ * for replacement several times, which means the replacement did not fix the problem.
+ * Every flag from the threshold on raises a new alert, since each one is another failed
+ * replacement. Only a counter per serial number is kept.
+ */
+public class RepeatedReplacementRule implements EscalationRule {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int threshold;
+    private final Severity escalatedSeverity;
+
+    // Number of replacement flags of each serial number
+    private final HashMap<Integer, int[]> flags = new HashMap<>();
+
+    /**
+     * Constructor for the RepeatedReplacementRule class.
+     *
+     * @param threshold The number of replacement flags that raises the alert
+     * @param escalatedSeverity The severity the component should be treated as
+     */
+    public RepeatedReplacementRule(int threshold, Severity escalatedSeverity) {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("La regla necesita al menos dos reportes.");
+        }
+        this.threshold = threshold;
+        this.escalatedSeverity = escalatedSeverity;
+    }
+
+    @Override
+    public String getName() {
+        return "Componente a reemplazar " + threshold + "+ veces";
+    }
+
+    @Override
+    public EscalationAlert evaluate(Report report) {
+        if (!(report instanceof Hardware) || !((Hardware) report).isHasToReplace()) {
+            return null;
+        }
+
+        Hardware hardware = (Hardware) report;
+        int count = ++flags.computeIfAbsent(hardware.getSerialNumber(), key -> new int[1])[0];
+        if (count < threshold) {
+            return null;
+        }
+
+        String message = "El componente " + hardware.getComponent_type() + " con número serial "
+                + hardware.getSerialNumber() + " fue marcado para cambio " + count + " veces.";
+        return new EscalationAlert(getName(), escalatedSeverity, report, message);
+    }
+
+    @Override
+    public void retract(Report report) {
+        if (!(report instanceof Hardware) || !((Hardware) report).isHasToReplace()) {
+            return;
+        }
+
+        int serialNumber = ((Hardware) report).getSerialNumber();
+        int[] count = flags.get(serialNumber);
+        if (count != null && --count[0] <= 0) {
+            flags.remove(serialNumber);
+        }
+    }
+
+    @Override
+    public void reset() {
+        flags.clear();
+    }
+}
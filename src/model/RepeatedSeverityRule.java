@@ -0,0 +1,111 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Rule that escalates an equipment with several reports of a severity level within a few days,
+ * such as 3 or more MEDIO reports on the same equipment within 7 days.
+ * Each equipment keeps a sliding window with the dates of its recent matching reports, so
+ * reports registered in date order cost O(1). Once the rule fires, the window of that
+ * equipment starts over, so each alert needs a new set of reports.
+ */
+public class RepeatedSeverityRule implements EscalationRule {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Severity severity;
+    private final int threshold;
+    private final int windowDays;
+    private final Severity escalatedSeverity;
+
+    // Dates of the recent matching reports of each equipment, from the oldest to the newest
+    private final HashMap<String, ArrayDeque<LocalDate>> windows = new HashMap<>();
+
+    /**
+     * Constructor for the RepeatedSeverityRule class.
+     *
+     * @param severity The severity level of the reports to count
+     * @param threshold The number of reports that raises the alert
+     * @param windowDays The maximum number of days between the first and the last report
+     * @param escalatedSeverity The severity the equipment should be treated as
+     */
+    public RepeatedSeverityRule(Severity severity, int threshold, int windowDays, Severity escalatedSeverity) {
+        if (threshold < 2 || windowDays < 0) {
+            throw new IllegalArgumentException("La regla necesita al menos dos reportes y una ventana no negativa.");
+        }
+        this.severity = severity;
+        this.threshold = threshold;
+        this.windowDays = windowDays;
+        this.escalatedSeverity = escalatedSeverity;
+    }
+
+    @Override
+    public String getName() {
+        return threshold + "+ " + severity + " en " + windowDays + " días";
+    }
+
+    @Override
+    public EscalationAlert evaluate(Report report) {
+        if (report.getSeverityType() != severity) {
+            return null;
+        }
+
+        ArrayDeque<LocalDate> window = windows.computeIfAbsent(report.getId_gadget(), key -> new ArrayDeque<>(threshold));
+        insertInOrder(window, report.getDate_report());
+
+        // Drop the dates that no longer fit in the window ending at the newest date
+        LocalDate oldestAllowed = window.peekLast().minusDays(windowDays);
+        while (window.peekFirst().isBefore(oldestAllowed)) {
+            window.pollFirst();
+        }
+
+        if (window.size() < threshold) {
+            return null;
+        }
+
+        String message = "El equipo " + report.getId_gadget() + " tiene " + window.size() + " reportes "
+                + severity + " entre " + window.peekFirst() + " y " + window.peekLast() + ".";
+        windows.remove(report.getId_gadget());
+        return new EscalationAlert(getName(), escalatedSeverity, report, message);
+    }
+
+    @Override
+    public void retract(Report report) {
+        if (report.getSeverityType() != severity) {
+            return;
+        }
+
+        ArrayDeque<LocalDate> window = windows.get(report.getId_gadget());
+        if (window != null && window.removeFirstOccurrence(report.getDate_report()) && window.isEmpty()) {
+            windows.remove(report.getId_gadget());
+        }
+    }
+
+    @Override
+    public void reset() {
+        windows.clear();
+    }
+
+    /**
+     * Inserts a date keeping the window sorted. Dates usually arrive in order and go straight
+     * to the end; a late date only moves the few newer dates of the window.
+     *
+     * @param window The window of an equipment
+     * @param date The date to insert
+     */
+    private static void insertInOrder(Deque<LocalDate> window, LocalDate date) {
+        List<LocalDate> newer = new ArrayList<>(0);
+        while (!window.isEmpty() && window.peekLast().isAfter(date)) {
+            newer.add(window.pollLast());
+        }
+        window.addLast(date);
+        for (int i = newer.size() - 1; i >= 0; i--) {
+            window.addLast(newer.get(i));
+        }
+    }
+}
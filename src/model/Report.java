@@ -1,6 +1,9 @@
 package model;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.time.LocalDate;
 
 /**
@@ -17,6 +20,9 @@ public abstract class Report implements Serializable {
     protected Severity severityType;
     protected LocalDate date_report;
 
+    // Text of date_report, computed once and reused by every rendering
+    private transient String dateText;
+
     /**
      * Constructor for the Report class.
      *
@@ -102,13 +108,98 @@ public abstract class Report implements Serializable {
      */
     public void setDate_report(LocalDate date_report) {
         this.date_report = date_report;
+        this.dateText = null;
+    }
+
+    /**
+     * Gets the date of the report as text in the ISO format (YYYY-MM-DD).
+     * The text is computed on the first call and reused afterwards.
+     *
+     * @return The text of the date of the report
+     */
+    protected String getDateText() {
+        if (dateText == null) {
+            dateText = String.valueOf(date_report);
+        }
+        return dateText;
+    }
+
+    /**
+     * Gets the report information as a formatted string.
+     *
+     * @return A string with the report information formatted with dashes between fields
+     */
+    public String getReportInfo() {
+        StringBuilder info = new StringBuilder(64 + (description == null ? 0 : description.length()));
+        try {
+            appendReportInfo(info);
+        } catch (IOException e) {
+            // StringBuilder never throws IOException
+            throw new UncheckedIOException(e);
+        }
+        return info.toString();
+    }
+
+    /**
+     * Writes the common fields of the report, each followed by a dash.
+     *
+     * @param out The destination of the text
+     * @throws IOException If the destination cannot be written
+     */
+    protected void appendCommonInfo(Appendable out) throws IOException {
+        out.append(String.valueOf(id_gadget)).append('-')
+                .append(String.valueOf(description)).append('-')
+                .append(String.valueOf(severityType)).append('-')
+                .append(getDateText()).append('-');
+    }
+
+    /**
+     * Encodes the common fields of the report as UTF-8, each followed by a dash.
+     *
+     * @param buffer The buffer that receives the bytes
+     */
+    protected void putCommonInfo(ByteBuffer buffer) {
+        Utf8.put(buffer, id_gadget);
+        buffer.put(Utf8.SEPARATOR);
+        Utf8.put(buffer, description);
+        buffer.put(Utf8.SEPARATOR);
+        buffer.put(Utf8.severity(severityType));
+        buffer.put(Utf8.SEPARATOR);
+        Utf8.put(buffer, getDateText());
+        buffer.put(Utf8.SEPARATOR);
+    }
+
+    /**
+     * Gets the maximum number of bytes the common fields take in UTF-8.
+     *
+     * @return The maximum number of bytes written by {@link #putCommonInfo(ByteBuffer)}
+     */
+    protected int maxCommonInfoBytes() {
+        return Utf8.maxBytes(id_gadget) + Utf8.maxBytes(description) + Utf8.maxBytes(getDateText()) + 5 + 4;
     }
 
     /**
-     * Abstract method to get the report information as a formatted string.
+     * Abstract method to write the report information, in the same format as
+     * {@link #getReportInfo()}, straight into a destination without building a String.
      * Each concrete report type will implement this method according to its specific attributes.
      *
-     * @return A string with the formatted report information
+     * @param out The destination of the text
+     * @throws IOException If the destination cannot be written
+     */
+    public abstract void appendReportInfo(Appendable out) throws IOException;
+
+    /**
+     * Abstract method to encode the report information as UTF-8 into a buffer,
+     * without allocating. The buffer must have at least {@link #maxReportInfoBytes()} bytes remaining.
+     *
+     * @param buffer The buffer that receives the bytes
+     */
+    public abstract void writeReportInfo(ByteBuffer buffer);
+
+    /**
+     * Abstract method to get the maximum number of bytes {@link #writeReportInfo(ByteBuffer)} can write.
+     *
+     * @return The maximum number of bytes of the encoded report information
      */
-    public abstract String getReportInfo();
+    public abstract int maxReportInfoBytes();
 }
\ No newline at end of file
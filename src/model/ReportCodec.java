@@ -0,0 +1,190 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Binary encoding of a single report, shared by the data file and the {@link OffHeapReportStore},
+ * so records can be copied between them without decoding a Report object.
+ * A record is a fixed part with the numeric fields followed by the text fields:
+ *
+ * <pre>
+ * record  = fixed strings
+ * fixed   = type:byte severity:byte hasToReplace:byte unused:byte serialNumber:int epochDay:int
+ * strings = id_gadget description (component_type | systemOperation softwareName version)
+ * string  = length:int UTF-8 bytes, with length -1 for null
+ * </pre>
+ *
+ * The type is 0 for Hardware and 1 for Software, the severity is its ordinal (-1 for none)
+ * and the date is its epoch day ({@link #NO_DATE} for none). Numbers are big-endian.
+ */
+class ReportCodec {
+
+    static final int FIXED_BYTES = 12;
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final byte HARDWARE = 0;
+    private static final byte SOFTWARE = 1;
+    private static final Severity[] SEVERITIES = Severity.values();
+
+    /**
+     * Gets the maximum number of bytes the record of a report can take.
+     *
+     * @param report The report
+     * @return An upper bound of the length of the record
+     */
+    static int maxBytes(Report report) {
+        int bytes = FIXED_BYTES + 2 * Integer.BYTES + Utf8.maxBytes(report.getId_gadget())
+                + Utf8.maxBytes(report.getDescription());
+        if (report instanceof Hardware) {
+            return bytes + Integer.BYTES + Utf8.maxBytes(((Hardware) report).getComponent_type());
+        }
+        Software software = (Software) report;
+        return bytes + 3 * Integer.BYTES + Utf8.maxBytes(software.getSystemOperation())
+                + Utf8.maxBytes(software.getSoftwareName()) + Utf8.maxBytes(software.getVersion());
+    }
+
+    /**
+     * Encodes the whole record of a report at the position of a buffer.
+     *
+     * @param report The report to encode
+     * @param buffer The buffer that receives the record, with at least {@link #maxBytes(Report)} bytes left
+     * @return The length of the record
+     */
+    static int put(Report report, ByteBuffer buffer) {
+        int start = buffer.position();
+        putFixed(report, buffer, start);
+        buffer.position(start + FIXED_BYTES);
+        return FIXED_BYTES + putStrings(report, buffer);
+    }
+
+    /**
+     * Encodes the fixed part of the record of a report at an absolute position.
+     *
+     * @param report The report to encode
+     * @param buffer The buffer that receives the fixed part
+     * @param at The position of the fixed part in the buffer
+     */
+    static void putFixed(Report report, ByteBuffer buffer, int at) {
+        boolean hardware = checkType(report);
+        Severity severity = report.getSeverityType();
+        LocalDate date = report.getDate_report();
+
+        buffer.put(at, hardware ? HARDWARE : SOFTWARE);
+        buffer.put(at + 1, severity == null ? -1 : (byte) severity.ordinal());
+        buffer.put(at + 2, (byte) (hardware && ((Hardware) report).isHasToReplace() ? 1 : 0));
+        buffer.put(at + 3, (byte) 0);
+        buffer.putInt(at + 4, hardware ? ((Hardware) report).getSerialNumber() : 0);
+        buffer.putInt(at + 8, date == null ? NO_DATE : Math.toIntExact(date.toEpochDay()));
+    }
+
+    /**
+     * Encodes the text fields of a report at the position of a buffer.
+     *
+     * @param report The report to encode
+     * @param buffer The buffer that receives the text fields
+     * @return The number of bytes written
+     */
+    static int putStrings(Report report, ByteBuffer buffer) {
+        int start = buffer.position();
+        putString(buffer, report.getId_gadget());
+        putString(buffer, report.getDescription());
+        if (checkType(report)) {
+            putString(buffer, ((Hardware) report).getComponent_type());
+        } else {
+            Software software = (Software) report;
+            putString(buffer, software.getSystemOperation());
+            putString(buffer, software.getSoftwareName());
+            putString(buffer, software.getVersion());
+        }
+        return buffer.position() - start;
+    }
+
+    /**
+     * Decodes a report from its fixed part and its text fields, which may be in different buffers.
+     * The positions of the buffers are not changed.
+     *
+     * @param fixed The buffer with the fixed part
+     * @param fixedAt The position of the fixed part
+     * @param strings The buffer with the text fields
+     * @param stringsAt The position of the first text field
+     * @return A new report with the decoded fields
+     */
+    static Report get(ByteBuffer fixed, int fixedAt, ByteBuffer strings, int stringsAt) {
+        byte type = fixed.get(fixedAt);
+        byte severityOrdinal = fixed.get(fixedAt + 1);
+        boolean hasToReplace = fixed.get(fixedAt + 2) == 1;
+        int serialNumber = fixed.getInt(fixedAt + 4);
+        int epochDay = fixed.getInt(fixedAt + 8);
+
+        int[] position = {stringsAt};
+        String idGadget = getString(strings, position);
+        String description = getString(strings, position);
+        Severity severity = severityOrdinal < 0 ? null : SEVERITIES[severityOrdinal];
+        LocalDate date = epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+
+        if (type == HARDWARE) {
+            String componentType = getString(strings, position);
+            return new Hardware(idGadget, description, severity, date, componentType, serialNumber, hasToReplace);
+        }
+        String systemOperation = getString(strings, position);
+        String softwareName = getString(strings, position);
+        String version = getString(strings, position);
+        return new Software(idGadget, description, severity, date, systemOperation, softwareName, version);
+    }
+
+    /**
+     * Checks that a report is of a type the record can hold.
+     *
+     * @param report The report
+     * @return True for Hardware, false for Software
+     */
+    private static boolean checkType(Report report) {
+        if (report instanceof Hardware) {
+            return true;
+        }
+        if (report instanceof Software) {
+            return false;
+        }
+        throw new IllegalArgumentException("Tipo de reporte no soportado: " + report.getClass().getName());
+    }
+
+    /**
+     * Encodes a length-prefixed UTF-8 text field.
+     *
+     * @param buffer The buffer that receives the field
+     * @param value The text, or null
+     */
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+
+        int lengthPosition = buffer.position();
+        buffer.putInt(0);
+        Utf8.put(buffer, value);
+        buffer.putInt(lengthPosition, buffer.position() - lengthPosition - Integer.BYTES);
+    }
+
+    /**
+     * Decodes a text field and advances past it.
+     *
+     * @param buffer The buffer with the field
+     * @param position The position of the field, updated to the position of the next field
+     * @return The decoded text, or null
+     */
+    private static String getString(ByteBuffer buffer, int[] position) {
+        int length = buffer.getInt(position[0]);
+        position[0] += Integer.BYTES;
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(position[0], bytes);
+        position[0] += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,276 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Data file of the Controller: a header followed by one {@link ReportCodec} record per report,
+ * in registration order. New reports are appended to the end of the file, so saving a report
+ * costs the size of that report and not of the whole list; the file is only written again in
+ * full when a report is updated or removed. Records are streamed through a small heap buffer
+ * in both directions, and an {@link OffHeapReportStore} receives and gives them without
+ * decoding a Report object.
+ *
+ * <pre>
+ * file   = "RPTD" version:int stamp:long nextSequence:long sequenceCount:int record*
+ * record = length:int ReportCodec record
+ * </pre>
+ *
+ * The stamp changes with every full write, and the files saved next to the data file are only
+ * used with the stamp they were saved with. The header also keeps the sequence number of the
+ * next report event at the time of the full write, with the number of reports written then;
+ * every record appended afterwards stands for one ADDED event, so the sequence numbers go on
+ * where they were left after a restart. Files of version 1 have no sequence fields and count
+ * one event per record from 1. A record cut short while it was being appended is
+ * dropped when the file is read. Not thread-safe; the Controller writes it from one thread at a time.
+ */
+class ReportDataFile {
+
+    private static final int MAGIC = 0x52505444;
+    private static final int FORMAT_VERSION = 2;
+    private static final int V1_HEADER_BYTES = 16;
+    private static final int HEADER_BYTES = 28;
+    private static final int BUFFER_BYTES = 256 * 1024;
+
+    private final Path path;
+
+    // Sequence number of the next event at the last full write, and the number of reports written then
+    private long sequenceBase = 1;
+    private int sequenceCount;
+
+    // Records encoded by encode() and not yet written, in write mode
+    private ByteBuffer pending = ByteBuffer.allocate(BUFFER_BYTES);
+
+    /**
+     * Constructor for the ReportDataFile class.
+     *
+     * @param path The path of the data file
+     */
+    ReportDataFile(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Checks whether the file exists and has the format of this class, as opposed to the
+     * serialized list of reports older versions saved.
+     *
+     * @return True if the file starts with the magic number of this format
+     * @throws IOException If an error occurs while reading
+     */
+    boolean hasRecordFormat() throws IOException {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) > 0) {
+                // Read until the four bytes arrive or the file ends
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Reads every record of the file into a list of reports, one record at a time.
+     * A trailing record cut short is dropped and cut from the file.
+     *
+     * @param reports The list that receives the reports
+     * @return The stamp of the file
+     * @throws IOException If the file cannot be read or has another format
+     */
+    long read(List<Report> reports) throws IOException {
+        OffHeapReportStore store = reports instanceof OffHeapReportStore ? (OffHeapReportStore) reports : null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+            fill(channel, buffer, HEADER_BYTES);
+            buffer.flip();
+            int version = buffer.remaining() < V1_HEADER_BYTES || buffer.getInt() != MAGIC ? -1 : buffer.getInt();
+            int headerBytes = version == FORMAT_VERSION ? HEADER_BYTES : V1_HEADER_BYTES;
+            if ((version != 1 && version != FORMAT_VERSION) || buffer.limit() < headerBytes) {
+                throw new IOException("Formato de archivo de datos desconocido: " + path);
+            }
+            long stamp = buffer.getLong();
+            if (version == FORMAT_VERSION) {
+                sequenceBase = buffer.getLong();
+                sequenceCount = buffer.getInt();
+            } else {
+                sequenceBase = 1;
+                sequenceCount = 0;
+            }
+            long complete = headerBytes;
+
+            while (true) {
+                int needed = buffer.remaining() < Integer.BYTES ? Integer.BYTES
+                        : Integer.BYTES + Math.max(0, buffer.getInt(buffer.position()));
+                if (buffer.remaining() < needed) {
+                    // Bring the rest of the record to the start of the buffer, growing it for large records
+                    if (needed > buffer.capacity()) {
+                        buffer = ByteBuffer.allocate(needed).put(buffer);
+                    } else {
+                        buffer.compact();
+                    }
+                    fill(channel, buffer, needed);
+                    buffer.flip();
+                    if (buffer.remaining() < needed) {
+                        break;
+                    }
+                    continue;
+                }
+
+                int length = buffer.getInt();
+                if (length < ReportCodec.FIXED_BYTES) {
+                    throw new IOException("Registro dañado en " + path + " en la posición " + complete);
+                }
+                int at = buffer.position();
+                if (store != null) {
+                    store.addRecord(buffer, at, length);
+                } else {
+                    reports.add(ReportCodec.get(buffer, at, buffer, at + ReportCodec.FIXED_BYTES));
+                }
+                buffer.position(at + length);
+                complete += Integer.BYTES + length;
+            }
+
+            if (channel.size() > complete) {
+                System.err.println("Se descartó un reporte incompleto al final de " + path);
+                channel.truncate(complete);
+            }
+            return stamp;
+        }
+    }
+
+    /**
+     * Gets the sequence number of the next report event for the reports read from or written to the file.
+     *
+     * @param reportCount The number of reports in the file
+     * @return The sequence number the next event should have
+     */
+    long nextSequence(int reportCount) {
+        return sequenceBase + Math.max(0, reportCount - sequenceCount);
+    }
+
+    /**
+     * Writes a new file with every report, replacing the current one once it is complete.
+     *
+     * @param reports The reports to write, in order
+     * @param nextSequence The sequence number of the next report event
+     * @return The new stamp of the file
+     * @throws IOException If an error occurs while writing
+     */
+    long rewrite(List<Report> reports, long nextSequence) throws IOException {
+        long stamp = ThreadLocalRandom.current().nextLong() | 1;
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).putLong(stamp)
+                    .putLong(nextSequence).putInt(reports.size());
+            header.flip();
+            write(channel, header);
+
+            for (int from = 0; from < reports.size(); ) {
+                from += encode(reports, from, reports.size());
+                flushPending(channel);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        sequenceBase = nextSequence;
+        sequenceCount = reports.size();
+        return stamp;
+    }
+
+    /**
+     * Encodes records of a range of reports into the pending buffer, as many as fit.
+     * The buffer grows when a single record does not fit in it.
+     *
+     * @param reports The list of reports
+     * @param from The ordinal of the first report to encode
+     * @param to The ordinal after the last report that may be encoded
+     * @return The number of reports encoded, at least one if the range is not empty
+     */
+    int encode(List<Report> reports, int from, int to) {
+        OffHeapReportStore store = reports instanceof OffHeapReportStore ? (OffHeapReportStore) reports : null;
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            Report report = store == null ? reports.get(i) : null;
+            int maxLength = store != null ? store.recordLength(i) : ReportCodec.maxBytes(report);
+            if (pending.remaining() < Integer.BYTES + maxLength) {
+                if (count > 0) {
+                    break;
+                }
+                pending = ByteBuffer.allocate(Math.max(BUFFER_BYTES, Integer.BYTES + maxLength));
+            }
+
+            int lengthPosition = pending.position();
+            pending.position(lengthPosition + Integer.BYTES);
+            if (store != null) {
+                store.getRecord(i, pending);
+            } else {
+                ReportCodec.put(report, pending);
+            }
+            pending.putInt(lengthPosition, pending.position() - lengthPosition - Integer.BYTES);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Appends the records encoded by {@link #encode} to the end of the file.
+     *
+     * @throws IOException If an error occurs while writing
+     */
+    void appendPending() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            flushPending(channel);
+        }
+    }
+
+    /**
+     * Writes the pending records to a channel and empties the pending buffer.
+     *
+     * @param channel The channel that receives the records
+     * @throws IOException If an error occurs while writing
+     */
+    private void flushPending(FileChannel channel) throws IOException {
+        pending.flip();
+        write(channel, pending);
+        if (pending.capacity() > BUFFER_BYTES) {
+            pending = ByteBuffer.allocate(BUFFER_BYTES);
+        } else {
+            pending.clear();
+        }
+    }
+
+    /**
+     * Writes every remaining byte of a buffer to a channel.
+     *
+     * @param channel The channel that receives the bytes
+     * @param buffer The buffer with the bytes, in read mode
+     * @throws IOException If an error occurs while writing
+     */
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads from a channel until a buffer holds a number of bytes or the channel ends.
+     *
+     * @param channel The channel to read from
+     * @param buffer The buffer that receives the bytes, in write mode
+     * @param bytes The number of bytes the buffer should hold
+     * @throws IOException If an error occurs while reading
+     */
+    private static void fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        while (buffer.position() < bytes && channel.read(buffer) > 0) {
+            // Keep reading until enough bytes arrive or the channel ends
+        }
+    }
+}
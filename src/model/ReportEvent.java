@@ -0,0 +1,80 @@
+package model;
+
+/**
+ * Change of the list of reports published by the Controller.
+ * Events are numbered with consecutive sequence numbers starting at 1, which go on across restarts of the Controller.
+ */
+public class ReportEvent {
+
+    private final long sequence;
+    private final ReportEventType type;
+    private final int ordinal;
+    private final Report report;
+
+    /**
+     * Constructor for the ReportEvent class.
+     *
+     * @param sequence The sequence number of the event
+     * @param type The kind of change
+     * @param ordinal The position of the report in the list of reports when the change happened
+     * @param report The added or updated report, or the removed one
+     */
+    public ReportEvent(long sequence, ReportEventType type, int ordinal, Report report) {
+        this.sequence = sequence;
+        this.type = type;
+        this.ordinal = ordinal;
+        this.report = report;
+    }
+
+    /**
+     * Gets the sequence number of the event.
+     *
+     * @return The sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the kind of change.
+     *
+     * @return The type of the event
+     */
+    public ReportEventType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the position of the report in the list of reports when the change happened.
+     *
+     * @return The ordinal of the report
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * Gets the added or updated report, or the removed one.
+     *
+     * @return The report of the event
+     */
+    public Report getReport() {
+        return report;
+    }
+
+    /**
+     * Gets the event as a JSON object.
+     *
+     * @return A JSON object with the sequence, type, ordinal and report
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(160);
+        json.append("{\"sequence\":").append(sequence)
+                .append(",\"event\":\"").append(type).append('"')
+                .append(",\"ordinal\":").append(ordinal)
+                .append(",\"report\":");
+        ReportJson.appendReport(json, report);
+        json.append('}');
+        return json.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Flow;
+
+/**
+ * Subscriber that appends every report event to a file as a JSON line, so other
+ * processes can follow the stream by tailing the file.
+ * Events are requested in batches, so a slow disk only slows down this subscriber.
+ */
+public class ReportEventFileWriter implements Flow.Subscriber<ReportEvent>, AutoCloseable {
+
+    private static final int BATCH_SIZE = 256;
+
+    private final BufferedWriter writer;
+    private Flow.Subscription subscription;
+    private int received;
+
+    /**
+     * Constructor for the ReportEventFileWriter class.
+     * The file is created if it does not exist, and new events are appended to it.
+     *
+     * @param file The file that receives the events
+     * @throws IOException If the file cannot be opened
+     */
+    public ReportEventFileWriter(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(BATCH_SIZE);
+    }
+
+    @Override
+    public void onNext(ReportEvent event) {
+        try {
+            writer.write(event.toJson());
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            subscription.cancel();
+            System.err.println("Error writing event " + event.getSequence() + ": " + e.getMessage());
+            return;
+        }
+
+        // Ask for the next batch once the current one is written
+        if (++received == BATCH_SIZE) {
+            received = 0;
+            subscription.request(BATCH_SIZE);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        System.err.println("Error in the event stream: " + throwable.getMessage());
+        close();
+    }
+
+    @Override
+    public void onComplete() {
+        close();
+    }
+
+    /**
+     * Stops receiving events and closes the file.
+     */
+    @Override
+    public void close() {
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("Error closing the event file: " + e.getMessage());
+        }
+    }
+}
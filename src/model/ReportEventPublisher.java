@@ -0,0 +1,266 @@
+package model;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publisher of the ordered stream of report events of a Controller.
+ * The most recent events are retained in a ring buffer, so a subscriber can resume from any
+ * retained sequence number. Each subscriber reads at its own pace with request(n) and is
+ * delivered on its own virtual thread; a subscriber that falls behind the retained events
+ * receives onError instead of making the publisher buffer without limit. A subscriber that
+ * throws from onNext loses its subscription and receives onError with the exception.
+ * Closing the publisher completes every subscriber after the events it already requested.
+ * <p>
+ * The sequence numbers of the events of a Controller go on across restarts: the Controller
+ * starts its publisher at the number that follows the last event of the saved data. Only the
+ * events published since the start are retained, so a subscriber that resumes from an event
+ * published before the restart receives onError, and should read the reports again and
+ * subscribe from {@link #getNextSequence()}. After a crash, the numbers of events whose reports
+ * were never saved are given again to the next events.
+ */
+public class ReportEventPublisher implements Flow.Publisher<ReportEvent>, AutoCloseable {
+
+    public static final int DEFAULT_RETENTION = 10_000;
+
+    private final ReportEvent[] ring;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final long firstSequence;
+    private long nextSequence;
+    private volatile boolean closed;
+
+    /**
+     * Constructor for the ReportEventPublisher class with the default retention.
+     */
+    public ReportEventPublisher() {
+        this(DEFAULT_RETENTION);
+    }
+
+    /**
+     * Constructor for the ReportEventPublisher class.
+     *
+     * @param retention The number of recent events kept for resuming subscribers
+     */
+    public ReportEventPublisher(int retention) {
+        this(retention, 1);
+    }
+
+    /**
+     * Constructor for a ReportEventPublisher whose events go on from a previous run.
+     *
+     * @param retention The number of recent events kept for resuming subscribers
+     * @param firstSequence The sequence number of the first event to publish
+     */
+    public ReportEventPublisher(int retention, long firstSequence) {
+        if (retention < 1) {
+            throw new IllegalArgumentException("Se debe retener al menos un evento.");
+        }
+        if (firstSequence < 1) {
+            throw new IllegalArgumentException("La secuencia de eventos empieza en 1.");
+        }
+        this.ring = new ReportEvent[retention];
+        this.firstSequence = firstSequence;
+        this.nextSequence = firstSequence;
+    }
+
+    /**
+     * Subscribes to the events published from now on.
+     *
+     * @param subscriber The subscriber that receives the events
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super ReportEvent> subscriber) {
+        subscribe(subscriber, getNextSequence());
+    }
+
+    /**
+     * Subscribes to the events starting at a sequence number.
+     * If that event is no longer retained, or was published before the publisher started,
+     * the subscriber receives onError.
+     *
+     * @param subscriber The subscriber that receives the events
+     * @param fromSequence The sequence number of the first event to receive
+     */
+    public void subscribe(Flow.Subscriber<? super ReportEvent> subscriber, long fromSequence) {
+        EventSubscription subscription = new EventSubscription(subscriber, Math.max(1, fromSequence));
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+        if (closed) {
+            subscription.fail(new IllegalStateException("El publicador de eventos está cerrado."));
+            return;
+        }
+        subscription.drain();
+    }
+
+    /**
+     * Publishes a new event and wakes up the subscribers waiting for it.
+     *
+     * @param type The kind of change
+     * @param ordinal The position of the report in the list of reports
+     * @param report The report of the change
+     * @return The published event
+     */
+    ReportEvent publish(ReportEventType type, int ordinal, Report report) {
+        ReportEvent event;
+        synchronized (ring) {
+            event = new ReportEvent(nextSequence, type, ordinal, report);
+            ring[(int) (nextSequence % ring.length)] = event;
+            nextSequence++;
+        }
+        for (EventSubscription subscription : subscriptions) {
+            subscription.drain();
+        }
+        return event;
+    }
+
+    /**
+     * Gets the sequence number the next event will have.
+     *
+     * @return The next sequence number
+     */
+    public long getNextSequence() {
+        synchronized (ring) {
+            return nextSequence;
+        }
+    }
+
+    /**
+     * Gets the sequence number of the oldest retained event.
+     *
+     * @return The oldest sequence number that can be resumed from
+     */
+    public long getOldestRetainedSequence() {
+        synchronized (ring) {
+            return Math.max(firstSequence, nextSequence - ring.length);
+        }
+    }
+
+    /**
+     * Completes every subscriber once it has received the events it already requested,
+     * and stops the delivery threads. Events published afterwards are not delivered.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (EventSubscription subscription : subscriptions) {
+            subscription.drain();
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Gets a retained event.
+     *
+     * @param sequence The sequence number of the event
+     * @return The event, or null if it was not published yet
+     * @throws IllegalStateException If the event is no longer retained
+     */
+    private ReportEvent eventAt(long sequence) {
+        synchronized (ring) {
+            if (sequence >= nextSequence) {
+                return null;
+            }
+            if (sequence < firstSequence || sequence < nextSequence - ring.length) {
+                throw new IllegalStateException("El evento " + sequence + " ya no está disponible.");
+            }
+            return ring[(int) (sequence % ring.length)];
+        }
+    }
+
+    /**
+     * Subscription that delivers events from its own cursor as long as there is demand.
+     */
+    private final class EventSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super ReportEvent> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        private volatile boolean cancelled;
+        private long cursor;
+
+        private EventSubscription(Flow.Subscriber<? super ReportEvent> subscriber, long fromSequence) {
+            this.subscriber = subscriber;
+            this.cursor = fromSequence;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("La cantidad solicitada debe ser positiva."));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        /**
+         * Schedules a delivery run, unless one is already running; that run will loop again.
+         */
+        private void drain() {
+            if (!cancelled && pendingDrains.getAndIncrement() == 0) {
+                executor.execute(this::deliver);
+            }
+        }
+
+        /**
+         * Delivers events while there is demand and published events left, and completes
+         * the subscriber when the publisher is closed.
+         */
+        private void deliver() {
+            int missed = 1;
+            do {
+                while (!cancelled && demand.get() > 0) {
+                    ReportEvent event;
+                    try {
+                        event = eventAt(cursor);
+                    } catch (IllegalStateException e) {
+                        // The subscriber fell behind the retained events
+                        fail(e);
+                        return;
+                    }
+                    if (event == null) {
+                        break;
+                    }
+                    cursor++;
+                    demand.decrementAndGet();
+                    try {
+                        subscriber.onNext(event);
+                    } catch (RuntimeException e) {
+                        fail(e);
+                        return;
+                    }
+                }
+                if (closed && !cancelled) {
+                    cancel();
+                    subscriber.onComplete();
+                    return;
+                }
+                missed = pendingDrains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Cancels the subscription and signals an error to the subscriber.
+         *
+         * @param error The cause of the failure
+         */
+        private void fail(Throwable error) {
+            cancel();
+            subscriber.onError(error);
+        }
+    }
+}
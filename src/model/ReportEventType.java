@@ -0,0 +1,9 @@
+package model;
+
+/**
+ * Enumeration for the kinds of changes published as report events.
+ * Defined kinds: ADDED, UPDATED and REMOVED.
+ */
+public enum ReportEventType {
+    ADDED, UPDATED, REMOVED
+}
@@ -0,0 +1,29 @@
+package model;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Interface for the formats in which the Controller can export reports.
+ * Implementations stream the reports into an NIO channel.
+ */
+public interface ReportExporter {
+
+    /**
+     * Gets the extension of the files written by this exporter.
+     *
+     * @return The file extension, without the dot
+     */
+    String getFileExtension();
+
+    /**
+     * Writes the reports into a channel.
+     * The reports may be iterated more than once.
+     *
+     * @param title The title of the export
+     * @param reports The reports to write
+     * @param channel The channel that receives the exported bytes
+     * @throws IOException If an error occurs while writing
+     */
+    void export(String title, Iterable<Report> reports, WritableByteChannel channel) throws IOException;
+}
@@ -0,0 +1,107 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Utility class for converting reports into JSON text.
+ * Contains static methods to write single reports, lists of reports and escaped strings.
+ */
+public class ReportJson {
+
+    /**
+     * Converts a list of reports into a JSON array.
+     *
+     * @param reports The reports to convert
+     * @return A JSON array with one object per report
+     */
+    public static String toJson(List<Report> reports) {
+        StringBuilder json = new StringBuilder(reports.size() * 128 + 2);
+        json.append('[');
+        for (int i = 0; i < reports.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendReport(json, reports.get(i));
+        }
+        json.append(']');
+        return json.toString();
+    }
+
+    /**
+     * Writes a report as a JSON object.
+     *
+     * @param json The builder that receives the JSON text
+     * @param report The report to write
+     */
+    public static void appendReport(StringBuilder json, Report report) {
+        json.append("{\"type\":");
+        appendString(json, report instanceof Hardware ? "Hardware" : "Software");
+        json.append(",\"id_gadget\":");
+        appendString(json, report.getId_gadget());
+        json.append(",\"description\":");
+        appendString(json, report.getDescription());
+        json.append(",\"severity\":");
+        appendString(json, String.valueOf(report.getSeverityType()));
+        json.append(",\"date\":");
+        appendString(json, String.valueOf(report.getDate_report()));
+
+        if (report instanceof Hardware) {
+            Hardware hardware = (Hardware) report;
+            json.append(",\"component_type\":");
+            appendString(json, hardware.getComponent_type());
+            json.append(",\"serialNumber\":").append(hardware.getSerialNumber());
+            json.append(",\"hasToReplace\":").append(hardware.isHasToReplace());
+        } else if (report instanceof Software) {
+            Software software = (Software) report;
+            json.append(",\"systemOperation\":");
+            appendString(json, software.getSystemOperation());
+            json.append(",\"softwareName\":");
+            appendString(json, software.getSoftwareName());
+            json.append(",\"version\":");
+            appendString(json, software.getVersion());
+        }
+        json.append('}');
+    }
+
+    /**
+     * Writes a quoted and escaped JSON string, or null when the value is null.
+     *
+     * @param json The builder that receives the JSON text
+     * @param value The string to write
+     */
+    public static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,83 @@
+package model;
+
+import java.io.Serializable;
+import java.time.YearMonth;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.TreeMap;
+
+/**
+ * Group of HyperLogLog sketches that estimate distinct equipment IDs per severity,
+ * per month and per report type.
+ * Each sketch takes constant memory, and the sketches of several months or of
+ * several stores can be merged.
+ */
+public class ReportSketches implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final EnumMap<Severity, HyperLogLog> bySeverity = new EnumMap<>(Severity.class);
+    private final TreeMap<YearMonth, HyperLogLog> byMonth = new TreeMap<>();
+    private final HashMap<String, HyperLogLog> byType = new HashMap<>();
+
+    /**
+     * Adds the equipment ID of a report to the sketches of its severity, month and type.
+     *
+     * @param report The report to add
+     */
+    public void add(Report report) {
+        String id = report.getId_gadget();
+        if (report.getSeverityType() != null) {
+            bySeverity.computeIfAbsent(report.getSeverityType(), key -> new HyperLogLog()).add(id);
+        }
+        byMonth.computeIfAbsent(YearMonth.from(report.getDate_report()), key -> new HyperLogLog()).add(id);
+        byType.computeIfAbsent(report instanceof Hardware ? "Hardware" : "Software", key -> new HyperLogLog()).add(id);
+    }
+
+    /**
+     * Estimates the distinct equipment IDs with reports of a severity level.
+     *
+     * @param severity The severity level
+     * @return The estimated number of distinct equipment IDs
+     */
+    public long estimateBySeverity(Severity severity) {
+        HyperLogLog sketch = bySeverity.get(severity);
+        return sketch == null ? 0 : sketch.estimate();
+    }
+
+    /**
+     * Estimates the distinct equipment IDs with reports in a range of months.
+     *
+     * @param from The first month of the range
+     * @param to The last month of the range, inclusive
+     * @return The estimated number of distinct equipment IDs
+     */
+    public long estimateByMonths(YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            return 0;
+        }
+        return HyperLogLog.union(byMonth.subMap(from, true, to, true).values()).estimate();
+    }
+
+    /**
+     * Estimates the distinct equipment IDs with reports of a type.
+     *
+     * @param type The type of report ("Hardware" or "Software")
+     * @return The estimated number of distinct equipment IDs
+     */
+    public long estimateByType(String type) {
+        HyperLogLog sketch = byType.get(type);
+        return sketch == null ? 0 : sketch.estimate();
+    }
+
+    /**
+     * Adds every sketch of another group to the sketches of this one.
+     *
+     * @param other The group to merge
+     */
+    public void merge(ReportSketches other) {
+        other.bySeverity.forEach((key, sketch) -> bySeverity.computeIfAbsent(key, k -> new HyperLogLog()).merge(sketch));
+        other.byMonth.forEach((key, sketch) -> byMonth.computeIfAbsent(key, k -> new HyperLogLog()).merge(sketch));
+        other.byType.forEach((key, sketch) -> byType.computeIfAbsent(key, k -> new HyperLogLog()).merge(sketch));
+    }
+}
@@ -0,0 +1,722 @@
+package model;
+
+import exceptions.DuplicateReportException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Coordinator that partitions the reports across several Controller shards.
+ * Each report goes to the shard chosen by the hash of its equipment ID, and each shard
+ * keeps its own data directory, indexes and lock. Queries by equipment ID go to exactly
+ * one shard; the other queries run on every shard at once on virtual threads and their
+ * results are merged.
+ * <p>
+ * The base directory keeps a manifest with the number of shards, since the shard of a report
+ * depends on it, and opening the directory with another number of shards is refused. It also
+ * keeps an order log with the shard of every report registered through this class, one byte per
+ * report, so the results of several shards are merged in registration order as the Controller
+ * returns them. Reports are added, replaced and removed through this class, which keeps the log
+ * in line with the shards; if a shard was changed otherwise, for instance by a crash between
+ * saving a shard and the log, the log is brought in line with the shards on the next start.
+ */
+public class ShardedController implements AutoCloseable {
+
+    public static final int MAX_SHARDS = 256;
+
+    private static final String MANIFEST_FILE = "shards.properties";
+    private static final String ORDER_FILE = "shards.order";
+    private static final String SHARD_COUNT = "shardCount";
+
+    private final List<Controller> shards = new ArrayList<>();
+    private final ExecutorService executor;
+
+    // Registration position of each report of each shard, by its ordinal inside the shard
+    private final List<OrdinalList> positions = new ArrayList<>();
+    private int registered;
+    private final Path orderFile;
+    private FileChannel orderLog;
+
+    /**
+     * Constructor for the ShardedController class.
+     * Shard i keeps its files under baseDirectory/shard-i.
+     *
+     * @param baseDirectory The directory that holds the shard directories
+     * @param shardCount The number of shards
+     * @throws IllegalArgumentException If the number of shards is out of range or differs from
+     * the number the directory was written with
+     */
+    public ShardedController(String baseDirectory, int shardCount) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("Debe haber entre 1 y " + MAX_SHARDS + " fragmentos.");
+        }
+        Path base = Path.of(baseDirectory);
+        checkManifest(base, shardCount);
+        this.orderFile = base.resolve(ORDER_FILE);
+
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<Callable<Controller>> loads = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            String directory = base.resolve("shard-" + i).toString();
+            loads.add(() -> new Controller(directory));
+        }
+
+        // Shards load their data in parallel; if one fails, the loaded ones are closed with the executor
+        RuntimeException failure = null;
+        try {
+            for (Future<Controller> shard : invokeAll(loads)) {
+                try {
+                    shards.add(getResult(shard));
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        if (failure != null) {
+            shutdown();
+            throw failure;
+        }
+
+        loadOrder();
+    }
+
+    /**
+     * Gets the number of shards.
+     *
+     * @return The number of shards
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Gets the shard that stores the reports of an equipment. Reports must be added, replaced
+     * and removed through this class, which keeps the registration order of every shard.
+     *
+     * @param idGadget The ID of the equipment
+     * @return The controller of the shard
+     */
+    Controller shardFor(String idGadget) {
+        return shards.get(shardIndex(idGadget));
+    }
+
+    /**
+     * Adds a new report to its shard and saves the data of that shard.
+     * Duplicates can only be found within the shard, which holds every report of the equipment.
+     *
+     * @param report The report to be added
+     * @return Null if the report was added as a new report, or the match with the registered report
+     * it duplicates, with the ordinal of the original inside its shard
+     * @throws DuplicateReportException If the report is a duplicate and the policy of the shard is REJECT
+     */
+    public DuplicateMatch addReport(Report report) throws DuplicateReportException {
+        int shard = shardIndex(report.getId_gadget());
+        DuplicateMatch match = shards.get(shard).addReport(report);
+        if (match == null || match.isAdded()) {
+            logOrder(shard);
+        }
+        return match;
+    }
+
+    /**
+     * Replaces a registered report and saves the data of its shard. A replacement with the
+     * equipment ID of the same shard keeps the registration position of the report. One that
+     * belongs to another shard is registered there like a new report, subject to the duplicate
+     * policy of that shard, and the old report is then removed.
+     *
+     * @param existing The registered report to replace
+     * @param replacement The new version of the report
+     * @return True if the report was replaced, false if it is not registered
+     * @throws DuplicateReportException If the replacement moves to another shard, duplicates a report
+     * of that shard and its policy is REJECT; the existing report is then kept
+     */
+    public boolean updateReport(Report existing, Report replacement) throws DuplicateReportException {
+        int from = shardIndex(existing.getId_gadget());
+        int to = shardIndex(replacement.getId_gadget());
+        if (from == to) {
+            return shards.get(from).updateReport(existing, replacement);
+        }
+        if (!shards.get(from).isRegistered(existing)) {
+            return false;
+        }
+        addReport(replacement);
+        removeReport(existing);
+        return true;
+    }
+
+    /**
+     * Removes a registered report from its shard and saves the data of that shard.
+     * The order log is written again without the report.
+     *
+     * @param report The registered report to remove
+     * @return True if the report was removed, false if it is not registered
+     */
+    public boolean removeReport(Report report) {
+        int shard = shardIndex(report.getId_gadget());
+        synchronized (positions) {
+            int ordinal = shards.get(shard).removeReportOrdinal(report);
+            if (ordinal < 0) {
+                return false;
+            }
+            if (ordinal < positions.get(shard).size()) {
+                positions.get(shard).remove(ordinal);
+                rewriteOrder();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Searches for reports by their equipment ID in the only shard that can hold them.
+     *
+     * @param idGadget The ID of the equipment to search for
+     * @return An unmodifiable list of reports with the specified equipment ID
+     */
+    public List<Report> searchReportsByid(String idGadget) {
+        return shardFor(idGadget).searchReportsByid(idGadget);
+    }
+
+    /**
+     * Searches every shard for reports by their severity type.
+     *
+     * @param severityType The severity type to search for
+     * @return A list of reports with the specified severity type, in registration order
+     */
+    public List<Report> searchBySeverityType(int severityType) {
+        return scatterInOrder((shard, ordinals) -> shard.searchBySeverityType(severityType, ordinals));
+    }
+
+    /**
+     * Searches every shard for reports created since a specific date.
+     *
+     * @param date The date from which to search for reports
+     * @return A list of reports created on or after the specified date, in registration order
+     */
+    public List<Report> searchSinceDeterminateDate(LocalDate date) {
+        return scatterInOrder((shard, ordinals) -> shard.searchSinceDeterminateDate(date, ordinals));
+    }
+
+    /**
+     * Gets a list of all unique equipment IDs in the reports of every shard.
+     * Each equipment ID lives in a single shard, so the lists never overlap.
+     *
+     * @return A list of equipment IDs
+     */
+    public List<String> getEquipmentIds() {
+        List<String> ids = new ArrayList<>();
+        for (List<String> shardIds : scatter(Controller::getEquipmentIds)) {
+            ids.addAll(shardIds);
+        }
+        return ids;
+    }
+
+    /**
+     * Gets the summary of every equipment of every shard.
+     *
+     * @return A list with the summary of each equipment, grouped by shard
+     */
+    public List<EquipmentSummary> getEquipmentSummaries() {
+        List<EquipmentSummary> summaries = new ArrayList<>();
+        for (List<EquipmentSummary> shardSummaries : scatter(Controller::getEquipmentSummaries)) {
+            summaries.addAll(shardSummaries);
+        }
+        return summaries;
+    }
+
+    /**
+     * Gets the reports of an equipment sorted by date from the only shard that can hold them.
+     *
+     * @param idGadget The ID of the equipment
+     * @return A list of the reports of the equipment, from the earliest to the latest
+     */
+    public List<Report> getEquipmentHistory(String idGadget) {
+        return shardFor(idGadget).getEquipmentHistory(idGadget);
+    }
+
+    /**
+     * Gets the exact number of distinct equipment IDs of every shard.
+     *
+     * @return The number of distinct equipment IDs
+     */
+    public int getEquipmentCount() {
+        int count = 0;
+        for (int shardCount : scatter(Controller::getEquipmentCount)) {
+            count += shardCount;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the earliest date from the reports of every shard.
+     *
+     * @return The earliest date of any report, or null if no reports exist
+     */
+    public LocalDate getEarliestDate() {
+        LocalDate earliest = null;
+        for (LocalDate date : scatter(Controller::getEarliestDate)) {
+            if (date != null && (earliest == null || date.isBefore(earliest))) {
+                earliest = date;
+            }
+        }
+        return earliest;
+    }
+
+    /**
+     * Gets the latest date from the reports of every shard.
+     *
+     * @return The latest date of any report, or null if no reports exist
+     */
+    public LocalDate getLatestDate() {
+        LocalDate latest = null;
+        for (LocalDate date : scatter(Controller::getLatestDate)) {
+            if (date != null && (latest == null || date.isAfter(latest))) {
+                latest = date;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Gets the equipment IDs with the most reports of a severity level in a quarter.
+     * The per-shard rankings are exact to merge because each ID lives in a single shard.
+     *
+     * @param severity The severity level to count
+     * @param year The year of the quarter
+     * @param quarter The quarter of the year, from 1 to 4
+     * @param k The maximum number of equipment IDs to return
+     * @return The equipment IDs with their report counts, from the most to the least reported
+     */
+    public List<Map.Entry<String, Integer>> getTopEquipment(Severity severity, int year, int quarter, int k) {
+        return topOf(scatter(shard -> shard.getTopEquipment(severity, year, quarter, k)), k);
+    }
+
+    /**
+     * Gets the hardware component types most often flagged as needing replacement.
+     * Component types appear in several shards, so the full counts of every shard are added up.
+     *
+     * @param k The maximum number of component types to return
+     * @return The component types with their counts, from the most to the least flagged
+     */
+    public List<Map.Entry<String, Integer>> getTopComponentsToReplace(int k) {
+        TopKCounter total = new TopKCounter();
+        for (List<Map.Entry<String, Integer>> counts : scatter(shard -> shard.getTopComponentsToReplace(Integer.MAX_VALUE))) {
+            for (Map.Entry<String, Integer> entry : counts) {
+                total.add(entry.getKey(), entry.getValue());
+            }
+        }
+        return total.top(k);
+    }
+
+    /**
+     * Estimates how many distinct equipment IDs have reports of a severity level.
+     * The shards hold disjoint sets of IDs, so their estimates are added up.
+     *
+     * @param severity The severity level
+     * @return The estimated number of distinct equipment IDs
+     */
+    public long estimateDistinctEquipment(Severity severity) {
+        return sum(scatter(shard -> shard.estimateDistinctEquipment(severity)));
+    }
+
+    /**
+     * Estimates how many distinct equipment IDs have reports in a range of months.
+     *
+     * @param from The first month of the range
+     * @param to The last month of the range, inclusive
+     * @return The estimated number of distinct equipment IDs
+     */
+    public long estimateDistinctEquipment(YearMonth from, YearMonth to) {
+        return sum(scatter(shard -> shard.estimateDistinctEquipment(from, to)));
+    }
+
+    /**
+     * Estimates how many distinct equipment IDs have reports of a type.
+     *
+     * @param type The type of report ("Hardware" or "Software")
+     * @return The estimated number of distinct equipment IDs
+     */
+    public long estimateDistinctEquipmentByType(String type) {
+        return sum(scatter(shard -> shard.estimateDistinctEquipmentByType(type)));
+    }
+
+    /**
+     * Stops the threads used to query the shards, closes every shard and the order log.
+     */
+    @Override
+    public void close() {
+        shutdown();
+    }
+
+    /**
+     * Stops the threads used to query the shards, closes every loaded shard and the order log.
+     */
+    private void shutdown() {
+        executor.shutdown();
+        for (Controller shard : shards) {
+            shard.close();
+        }
+        synchronized (positions) {
+            if (orderLog != null) {
+                try {
+                    orderLog.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing the shard order: " + e.getMessage());
+                }
+                orderLog = null;
+            }
+        }
+    }
+
+    /**
+     * Gets the index of the shard that stores the reports of an equipment.
+     *
+     * @param idGadget The ID of the equipment
+     * @return The index of the shard
+     */
+    private int shardIndex(String idGadget) {
+        return Math.floorMod(idGadget.hashCode(), shards.size());
+    }
+
+    /**
+     * Checks the number of shards against the manifest of the base directory, and writes the
+     * manifest if there is none. Directories written before the manifest existed are checked
+     * against the number of shard directories they hold.
+     *
+     * @param base The base directory
+     * @param shardCount The number of shards requested
+     * @throws IllegalArgumentException If the directory was written with another number of shards
+     */
+    private static void checkManifest(Path base, int shardCount) {
+        Path manifest = base.resolve(MANIFEST_FILE);
+        int saved = 0;
+        if (Files.exists(manifest)) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(manifest)) {
+                properties.load(in);
+                saved = Integer.parseInt(properties.getProperty(SHARD_COUNT, ""));
+            } catch (IOException | NumberFormatException e) {
+                throw new IllegalStateException("No se pudo leer el manifiesto de fragmentos " + manifest + ": " + e.getMessage(), e);
+            }
+        } else {
+            while (Files.isDirectory(base.resolve("shard-" + saved))) {
+                saved++;
+            }
+        }
+
+        if (saved > 0 && saved != shardCount) {
+            throw new IllegalArgumentException("Los reportes de " + base + " están repartidos en " + saved
+                    + " fragmentos, no en " + shardCount + ".");
+        }
+        if (Files.exists(manifest)) {
+            return;
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty(SHARD_COUNT, String.valueOf(shardCount));
+        try {
+            Files.createDirectories(base);
+            try (OutputStream out = Files.newOutputStream(manifest)) {
+                properties.store(out, "Number of shards the reports are partitioned into");
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving the shard manifest: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the order log and opens it for appending. Entries of reports a shard no longer has
+     * are dropped, and reports of a shard missing from the log are placed after the logged ones,
+     * in shard order; the log is then written again.
+     */
+    private void loadOrder() {
+        byte[] saved = new byte[0];
+        try {
+            if (Files.exists(orderFile)) {
+                saved = Files.readAllBytes(orderFile);
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading the shard order: " + e.getMessage());
+        }
+
+        int[] reportCounts = new int[shards.size()];
+        for (int i = 0; i < shards.size(); i++) {
+            positions.add(new OrdinalList());
+            reportCounts[i] = shards.get(i).getReportCount();
+        }
+
+        boolean repaired = false;
+        for (byte entry : saved) {
+            int shard = entry & 0xFF;
+            if (shard >= shards.size() || positions.get(shard).size() >= reportCounts[shard]) {
+                repaired = true;
+                continue;
+            }
+            positions.get(shard).add(registered++);
+        }
+        for (int shard = 0; shard < shards.size(); shard++) {
+            while (positions.get(shard).size() < reportCounts[shard]) {
+                positions.get(shard).add(registered++);
+                repaired = true;
+            }
+        }
+
+        if (repaired) {
+            rewriteOrder();
+            return;
+        }
+        try {
+            orderLog = FileChannel.open(orderFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Error saving the shard order: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the order log again from the registration positions, numbering them again
+     * without the gaps left by removed reports, and reopens it for appending.
+     * Must be called holding the lock of the positions, or before the constructor returns.
+     */
+    private void rewriteOrder() {
+        int[] shardAt = new int[registered];
+        Arrays.fill(shardAt, -1);
+        for (int shard = 0; shard < shards.size(); shard++) {
+            OrdinalList shardPositions = positions.get(shard);
+            for (int i = 0; i < shardPositions.size(); i++) {
+                shardAt[shardPositions.get(i)] = shard;
+            }
+        }
+
+        byte[] order = new byte[registered];
+        int count = 0;
+        for (int shard = 0; shard < shards.size(); shard++) {
+            positions.set(shard, new OrdinalList());
+        }
+        for (int shard : shardAt) {
+            if (shard >= 0) {
+                positions.get(shard).add(count);
+                order[count++] = (byte) shard;
+            }
+        }
+        registered = count;
+
+        try {
+            if (orderLog != null) {
+                orderLog.close();
+                orderLog = null;
+            }
+            Path temporary = orderFile.resolveSibling(orderFile.getFileName() + ".tmp");
+            Files.write(temporary, Arrays.copyOf(order, count));
+            Files.move(temporary, orderFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            orderLog = FileChannel.open(orderFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Error saving the shard order: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records that a report was registered in a shard, at the end of the order log.
+     * If the log cannot be written, the order is kept in memory and repaired on the next start.
+     *
+     * @param shard The index of the shard that registered the report
+     */
+    private void logOrder(int shard) {
+        synchronized (positions) {
+            positions.get(shard).add(registered++);
+            if (orderLog == null) {
+                return;
+            }
+            try {
+                orderLog.write(ByteBuffer.wrap(new byte[]{(byte) shard}));
+            } catch (IOException e) {
+                System.err.println("Error saving the shard order: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Runs a search on every shard at once and merges the reports found in registration order.
+     *
+     * @param search The search to run on each shard, which also gives the ordinal of each report inside the shard
+     * @return A new list with the reports of every shard, in registration order
+     */
+    private List<Report> scatterInOrder(BiFunction<Controller, OrdinalList, List<Report>> search) {
+        List<OrdinalList> ordinals = new ArrayList<>(shards.size());
+        List<Callable<List<Report>>> tasks = new ArrayList<>(shards.size());
+        for (Controller shard : shards) {
+            OrdinalList shardOrdinals = new OrdinalList();
+            ordinals.add(shardOrdinals);
+            tasks.add(() -> search.apply(shard, shardOrdinals));
+        }
+
+        List<List<Report>> results = new ArrayList<>(shards.size());
+        for (Future<List<Report>> future : invokeAll(tasks)) {
+            results.add(getResult(future));
+        }
+        return mergeByRegistration(results, ordinals);
+    }
+
+    /**
+     * Runs a query on every shard at once.
+     *
+     * @param query The query to run on each shard
+     * @param <T> The type of the result of the query
+     * @return The result of each shard, in shard order
+     */
+    private <T> List<T> scatter(Function<Controller, T> query) {
+        List<Callable<T>> tasks = new ArrayList<>(shards.size());
+        for (Controller shard : shards) {
+            tasks.add(() -> query.apply(shard));
+        }
+
+        List<T> results = new ArrayList<>(shards.size());
+        for (Future<T> future : invokeAll(tasks)) {
+            results.add(getResult(future));
+        }
+        return results;
+    }
+
+    /**
+     * Runs every task on the executor and waits for all of them.
+     *
+     * @param tasks The tasks to run
+     * @param <T> The type of the results
+     * @return The completed futures, in task order
+     */
+    private <T> List<Future<T>> invokeAll(List<Callable<T>> tasks) {
+        try {
+            return executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Consulta interrumpida.", e);
+        }
+    }
+
+    /**
+     * Gets the result of a completed future, rethrowing the failure of the shard if any.
+     *
+     * @param future The completed future
+     * @param <T> The type of the result
+     * @return The result of the future
+     */
+    private static <T> T getResult(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Consulta interrumpida.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Merges the reports of every shard in registration order. The reports of each shard are
+     * already in the order of their shard, so the merge takes at each step the report that was
+     * registered first among the next report of every shard.
+     *
+     * @param results The reports of each shard, in the order of the shard
+     * @param ordinals The ordinal of each report inside its shard
+     * @return A new list with every report
+     */
+    private List<Report> mergeByRegistration(List<List<Report>> results, List<OrdinalList> ordinals) {
+        int total = 0;
+        for (List<Report> result : results) {
+            total += result.size();
+        }
+
+        List<Report> merged = new ArrayList<>(total);
+        int[] next = new int[results.size()];
+        synchronized (positions) {
+            while (merged.size() < total) {
+                int first = -1;
+                long firstPosition = Long.MAX_VALUE;
+                for (int shard = 0; shard < results.size(); shard++) {
+                    if (next[shard] < results.get(shard).size()) {
+                        long position = registrationPosition(shard, ordinals.get(shard).get(next[shard]));
+                        if (first < 0 || position < firstPosition) {
+                            first = shard;
+                            firstPosition = position;
+                        }
+                    }
+                }
+                merged.add(results.get(first).get(next[first]++));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Gets the registration position of a report of a shard. Must be called holding the lock of the positions.
+     *
+     * @param shard The index of the shard
+     * @param ordinal The ordinal of the report inside the shard
+     * @return The position of the report among the reports of every shard
+     */
+    private long registrationPosition(int shard, int ordinal) {
+        OrdinalList shardPositions = positions.get(shard);
+        // Reports missing from the log go after every logged report, in the order of their shard
+        return ordinal < shardPositions.size() ? shardPositions.get(ordinal) : (long) Integer.MAX_VALUE + ordinal;
+    }
+
+    /**
+     * Selects the K largest entries of several rankings with disjoint keys.
+     *
+     * @param rankings The ranking of each shard
+     * @param k The maximum number of entries to return
+     * @return The entries with the largest counts, from the largest to the smallest
+     */
+    private static List<Map.Entry<String, Integer>> topOf(List<List<Map.Entry<String, Integer>>> rankings, int k) {
+        TopKCounter merged = new TopKCounter();
+        for (List<Map.Entry<String, Integer>> ranking : rankings) {
+            for (Map.Entry<String, Integer> entry : ranking) {
+                merged.add(entry.getKey(), entry.getValue());
+            }
+        }
+        return merged.top(k);
+    }
+
+    /**
+     * Adds up the estimates of every shard.
+     *
+     * @param estimates The estimate of each shard
+     * @return The sum of the estimates
+     */
+    private static long sum(List<Long> estimates) {
+        long total = 0;
+        for (long estimate : estimates) {
+            total += estimate;
+        }
+        return total;
+    }
+}
@@ -1,6 +1,8 @@
 package model;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 
 /**
  * Class that represents a software report.
@@ -90,14 +92,42 @@ public class Software extends Report implements Serializable {
     }
 
     /**
-     * Gets the report information as a formatted string.
+     * Writes the software report information with dashes between fields.
      *
-     * @return A string with the software report information formatted with dashes between fields
+     * @param out The destination of the text
+     * @throws IOException If the destination cannot be written
      */
     @Override
-    public String getReportInfo() {
-        return id_gadget + "-" + description + "-" + severityType + "-" +
-                date_report.toString() + "-" + systemOperation + "-" +
-                softwareName + "-" + version;
+    public void appendReportInfo(Appendable out) throws IOException {
+        appendCommonInfo(out);
+        out.append(String.valueOf(systemOperation)).append('-')
+                .append(String.valueOf(softwareName)).append('-')
+                .append(String.valueOf(version));
+    }
+
+    /**
+     * Encodes the software report information as UTF-8 with dashes between fields.
+     *
+     * @param buffer The buffer that receives the bytes
+     */
+    @Override
+    public void writeReportInfo(ByteBuffer buffer) {
+        putCommonInfo(buffer);
+        Utf8.put(buffer, systemOperation);
+        buffer.put(Utf8.SEPARATOR);
+        Utf8.put(buffer, softwareName);
+        buffer.put(Utf8.SEPARATOR);
+        Utf8.put(buffer, version);
+    }
+
+    /**
+     * Gets the maximum number of bytes of the encoded software report information.
+     *
+     * @return The maximum number of bytes written by {@link #writeReportInfo(ByteBuffer)}
+     */
+    @Override
+    public int maxReportInfoBytes() {
+        return maxCommonInfoBytes() + Utf8.maxBytes(systemOperation) + Utf8.maxBytes(softwareName)
+                + Utf8.maxBytes(version) + 2;
     }
 }
\ No newline at end of file
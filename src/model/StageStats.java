@@ -0,0 +1,86 @@
+package model;
+
+/**
+ * Snapshot of the counters of one stage of the ingestion pipeline.
+ */
+public class StageStats {
+
+    private final String name;
+    private final long processed;
+    private final long rejected;
+    private final int queueDepth;
+    private final double throughput;
+
+    /**
+     * Constructor for the StageStats class.
+     *
+     * @param name The name of the stage
+     * @param processed The number of items the stage has completed
+     * @param rejected The number of items the stage has rejected
+     * @param queueDepth The number of items waiting in the input queue of the stage
+     * @param throughput The completed items per second since the pipeline started
+     */
+    public StageStats(String name, long processed, long rejected, int queueDepth, double throughput) {
+        this.name = name;
+        this.processed = processed;
+        this.rejected = rejected;
+        this.queueDepth = queueDepth;
+        this.throughput = throughput;
+    }
+
+    /**
+     * Gets the name of the stage.
+     *
+     * @return The name of the stage
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of items the stage has completed.
+     *
+     * @return The number of processed items
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * Gets the number of items the stage has rejected.
+     *
+     * @return The number of rejected items
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Gets the number of items waiting in the input queue of the stage.
+     *
+     * @return The queue depth
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Gets the completed items per second since the pipeline started.
+     *
+     * @return The throughput of the stage
+     */
+    public double getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * Gets the stage counters as a formatted string.
+     *
+     * @return A string with the name, counters and throughput of the stage
+     */
+    @Override
+    public String toString() {
+        return String.format("%s: procesados=%d rechazados=%d en cola=%d (%.1f/s)",
+                name, processed, rejected, queueDepth, throughput);
+    }
+}
@@ -0,0 +1,274 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generator of realistic Hardware and Software reports for load tests.
+ * The same seed and settings always produce the same sequence of reports. Equipment IDs
+ * follow a Zipf distribution, so a few hot equipment get most of the reports, and the
+ * severity mix, date range and description length can be adjusted.
+ */
+public class SyntheticReportGenerator {
+
+    private static final String[] COMPONENTS = {"CPU", "RAM", "Disco", "Fuente", "Pantalla", "Teclado", "Ventilador"};
+    private static final String[] SYSTEMS = {"Windows", "Linux", "macOS", "Android"};
+    private static final String[] SOFTWARE = {"Navegador", "Ofimática", "Antivirus", "ERP", "Correo", "Compilador"};
+    private static final String[] WORDS = {"falla", "equipo", "error", "reinicio", "lento", "pantalla", "azul",
+            "bloqueo", "ruido", "calor", "conexión", "red", "usuario", "reporta", "intermitente", "no", "enciende",
+            "actualización", "pendiente", "servicio"};
+    private static final DateTimeFormatter FEED_DATE = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+    private final SplittableRandom random;
+    private final int equipmentCount;
+    private double[] equipmentCdf;
+
+    private double zipfExponent = 1.1;
+    private double[] severityWeights = {0.2, 0.5, 0.3};
+    private double hardwareRatio = 0.5;
+    private double replacementRatio = 0.3;
+    private LocalDate startDate = LocalDate.of(2020, 1, 1);
+    private int daySpread = 5 * 365;
+    private int minDescriptionWords = 3;
+    private int maxDescriptionWords = 20;
+    private int serialNumberCount = 100_000;
+
+    /**
+     * Constructor for the SyntheticReportGenerator class.
+     *
+     * @param seed The seed that fixes the sequence of reports
+     * @param equipmentCount The number of distinct equipment IDs
+     */
+    public SyntheticReportGenerator(long seed, int equipmentCount) {
+        if (equipmentCount < 1) {
+            throw new IllegalArgumentException("Debe haber al menos un equipo.");
+        }
+        this.random = new SplittableRandom(seed);
+        this.equipmentCount = equipmentCount;
+    }
+
+    /**
+     * Sets how skewed the equipment IDs are. 0 gives every equipment the same share,
+     * and larger values concentrate the reports on fewer hot equipment.
+     *
+     * @param zipfExponent The exponent of the Zipf distribution
+     */
+    public void setZipfExponent(double zipfExponent) {
+        if (zipfExponent < 0) {
+            throw new IllegalArgumentException("El exponente no puede ser negativo.");
+        }
+        this.zipfExponent = zipfExponent;
+        this.equipmentCdf = null;
+    }
+
+    /**
+     * Sets the relative weights of the severity levels.
+     *
+     * @param alto The weight of ALTO reports
+     * @param medio The weight of MEDIO reports
+     * @param bajo The weight of BAJO reports
+     */
+    public void setSeverityWeights(double alto, double medio, double bajo) {
+        double total = alto + medio + bajo;
+        if (alto < 0 || medio < 0 || bajo < 0 || total <= 0) {
+            throw new IllegalArgumentException("Los pesos de severidad deben ser no negativos y no todos cero.");
+        }
+        this.severityWeights = new double[]{alto / total, medio / total, bajo / total};
+    }
+
+    /**
+     * Sets the share of Hardware reports; the rest are Software reports.
+     *
+     * @param hardwareRatio A number between 0 and 1
+     */
+    public void setHardwareRatio(double hardwareRatio) {
+        this.hardwareRatio = checkRatio(hardwareRatio);
+    }
+
+    /**
+     * Sets the share of Hardware reports that need a component replacement.
+     *
+     * @param replacementRatio A number between 0 and 1
+     */
+    public void setReplacementRatio(double replacementRatio) {
+        this.replacementRatio = checkRatio(replacementRatio);
+    }
+
+    /**
+     * Sets the range of report dates.
+     *
+     * @param startDate The earliest date
+     * @param daySpread The number of days after the earliest date that reports can have
+     */
+    public void setDateRange(LocalDate startDate, int daySpread) {
+        if (daySpread < 0) {
+            throw new IllegalArgumentException("El rango de días no puede ser negativo.");
+        }
+        this.startDate = startDate;
+        this.daySpread = daySpread;
+    }
+
+    /**
+     * Sets the range of description lengths, in words.
+     *
+     * @param minWords The minimum number of words
+     * @param maxWords The maximum number of words
+     */
+    public void setDescriptionWords(int minWords, int maxWords) {
+        if (minWords < 1 || maxWords < minWords) {
+            throw new IllegalArgumentException("Rango de palabras inválido.");
+        }
+        this.minDescriptionWords = minWords;
+        this.maxDescriptionWords = maxWords;
+    }
+
+    /**
+     * Sets the number of distinct component serial numbers.
+     *
+     * @param serialNumberCount The number of serial numbers
+     */
+    public void setSerialNumberCount(int serialNumberCount) {
+        if (serialNumberCount < 1) {
+            throw new IllegalArgumentException("Debe haber al menos un número serial.");
+        }
+        this.serialNumberCount = serialNumberCount;
+    }
+
+    /**
+     * Generates the next report.
+     *
+     * @return A new Hardware or Software report
+     */
+    public Report nextReport() {
+        String idGadget = nextEquipmentId();
+        String description = nextDescription();
+        Severity severity = nextSeverity();
+        LocalDate date = nextDate();
+
+        if (random.nextDouble() < hardwareRatio) {
+            return new Hardware(idGadget, description, severity, date,
+                    COMPONENTS[random.nextInt(COMPONENTS.length)],
+                    1 + random.nextInt(serialNumberCount),
+                    random.nextDouble() < replacementRatio);
+        }
+        return new Software(idGadget, description, severity, date,
+                SYSTEMS[random.nextInt(SYSTEMS.length)],
+                SOFTWARE[random.nextInt(SOFTWARE.length)],
+                random.nextInt(10) + "." + random.nextInt(20) + "." + random.nextInt(100));
+    }
+
+    /**
+     * Generates the next equipment ID, following the Zipf distribution.
+     * ID EQ-0 is the hottest one.
+     *
+     * @return An equipment ID
+     */
+    public String nextEquipmentId() {
+        if (equipmentCdf == null) {
+            equipmentCdf = zipfCdf(equipmentCount, zipfExponent);
+        }
+        int rank = Arrays.binarySearch(equipmentCdf, random.nextDouble());
+        return "EQ-" + (rank >= 0 ? rank : Math.min(-rank - 1, equipmentCount - 1));
+    }
+
+    /**
+     * Generates the next report date.
+     *
+     * @return A date inside the configured range
+     */
+    public LocalDate nextDate() {
+        return startDate.plusDays(random.nextInt(daySpread + 1));
+    }
+
+    /**
+     * Generates the next severity level following the configured weights.
+     *
+     * @return A severity level
+     */
+    public Severity nextSeverity() {
+        double value = random.nextDouble();
+        if (value < severityWeights[0]) {
+            return Severity.ALTO;
+        }
+        return value < severityWeights[0] + severityWeights[1] ? Severity.MEDIO : Severity.BAJO;
+    }
+
+    /**
+     * Converts a report into a line of the ingestion pipeline format.
+     *
+     * @param report The report to convert; its text fields must not contain semicolons
+     * @return The line for {@link IngestionPipeline#submit(String)}
+     */
+    public static String toFeedLine(Report report) {
+        StringBuilder line = new StringBuilder(96);
+        line.append(report instanceof Hardware ? "HARDWARE" : "SOFTWARE").append(';')
+                .append(report.getId_gadget()).append(';')
+                .append(report.getDescription()).append(';')
+                .append(report.getSeverityType()).append(';')
+                .append(report.getDate_report().format(FEED_DATE)).append(';');
+        if (report instanceof Hardware) {
+            Hardware hardware = (Hardware) report;
+            line.append(hardware.getComponent_type()).append(';')
+                    .append(hardware.getSerialNumber()).append(';')
+                    .append(hardware.isHasToReplace() ? 'S' : 'N');
+        } else {
+            Software software = (Software) report;
+            line.append(software.getSystemOperation()).append(';')
+                    .append(software.getSoftwareName()).append(';')
+                    .append(software.getVersion());
+        }
+        return line.toString();
+    }
+
+    /**
+     * Generates a description with a random number of words.
+     *
+     * @return A description
+     */
+    private String nextDescription() {
+        int words = minDescriptionWords + random.nextInt(maxDescriptionWords - minDescriptionWords + 1);
+        StringBuilder description = new StringBuilder(words * 8);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                description.append(' ');
+            }
+            description.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return description.toString();
+    }
+
+    /**
+     * Builds the cumulative distribution of a Zipf distribution.
+     *
+     * @param n The number of ranks
+     * @param exponent The exponent of the distribution
+     * @return The cumulative probability of each rank
+     */
+    private static double[] zipfCdf(int n, double exponent) {
+        double[] cdf = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += 1 / Math.pow(i + 1, exponent);
+            cdf[i] = total;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+
+    /**
+     * Checks that a ratio is between 0 and 1.
+     *
+     * @param ratio The ratio to check
+     * @return The same ratio
+     */
+    private static double checkRatio(double ratio) {
+        if (ratio < 0 || ratio > 1) {
+            throw new IllegalArgumentException("La proporción debe estar entre 0 y 1.");
+        }
+        return ratio;
+    }
+}
@@ -0,0 +1,51 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDate;
+
+/**
+ * Exporter for the original text format: a title, a separator line and one line per
+ * report with its fields separated by dashes, as returned by {@link Report#getReportInfo()}.
+ */
+public class TextReportExporter implements ReportExporter {
+
+    /**
+     * Gets the extension of the text files.
+     *
+     * @return The "txt" extension
+     */
+    @Override
+    public String getFileExtension() {
+        return "txt";
+    }
+
+    /**
+     * Writes the title and one line per report.
+     *
+     * @param title The title of the export
+     * @param reports The reports to write
+     * @param channel The channel that receives the exported bytes
+     * @throws IOException If an error occurs while writing
+     */
+    @Override
+    public void export(String title, Iterable<Report> reports, WritableByteChannel channel) throws IOException {
+        BufferedChannelWriter writer = new BufferedChannelWriter(channel);
+
+        String header = title + " generado el " + LocalDate.now();
+        ByteBuffer buffer = writer.reserve(Utf8.maxBytes(header) + 40 + 2 * Utf8.LINE_SEPARATOR.length);
+        Utf8.put(buffer, header);
+        buffer.put(Utf8.LINE_SEPARATOR);
+        Utf8.put(buffer, "----------------------------------------");
+        buffer.put(Utf8.LINE_SEPARATOR);
+
+        // Each report is encoded straight into the buffer
+        for (Report report : reports) {
+            buffer = writer.reserve(report.maxReportInfoBytes() + Utf8.LINE_SEPARATOR.length);
+            report.writeReportInfo(buffer);
+            buffer.put(Utf8.LINE_SEPARATOR);
+        }
+        writer.flush();
+    }
+}
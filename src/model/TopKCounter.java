@@ -0,0 +1,109 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Counter of occurrences per key that answers Top-K questions.
+ * Counts are updated incrementally, and the K largest are selected with a min-heap of
+ * size K, so a query costs O(D log K) over the D distinct keys and never sorts them all.
+ */
+public class TopKCounter {
+
+    private final Map<String, int[]> counts = new HashMap<>();
+
+    /**
+     * Adds one occurrence of a key.
+     *
+     * @param key The key to count
+     */
+    void increment(String key) {
+        counts.computeIfAbsent(key, k -> new int[1])[0]++;
+    }
+
+    /**
+     * Adds several occurrences of a key.
+     *
+     * @param key The key to count
+     * @param occurrences The number of occurrences to add
+     */
+    void add(String key, int occurrences) {
+        counts.computeIfAbsent(key, k -> new int[1])[0] += occurrences;
+    }
+
+    /**
+     * Gets every counted key with its number of occurrences.
+     *
+     * @return A view of the counts, where each array holds a single count
+     */
+    Map<String, int[]> counts() {
+        return counts;
+    }
+
+    /**
+     * Gets the number of occurrences of a key.
+     *
+     * @param key The key to look up
+     * @return The number of occurrences, or 0 if the key was never counted
+     */
+    public int count(String key) {
+        int[] count = counts.get(key);
+        return count == null ? 0 : count[0];
+    }
+
+    /**
+     * Gets the number of distinct keys counted.
+     *
+     * @return The number of distinct keys
+     */
+    public int size() {
+        return counts.size();
+    }
+
+    /**
+     * Gets the keys with the most occurrences.
+     * Ties are broken by key so the result is stable.
+     *
+     * @param k The maximum number of keys to return
+     * @return The keys with their counts, from the most to the least frequent
+     */
+    public List<Map.Entry<String, Integer>> top(int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+
+        PriorityQueue<Map.Entry<String, int[]>> heap = new PriorityQueue<>(Math.min(k, counts.size()) + 1, TopKCounter::compare);
+        for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+            if (heap.size() < k) {
+                heap.add(entry);
+            } else if (compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        List<Map.Entry<String, Integer>> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            Map.Entry<String, int[]> entry = heap.poll();
+            result.add(Map.entry(entry.getKey(), entry.getValue()[0]));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Orders entries by count, and by reversed key for equal counts.
+     *
+     * @param a The first entry
+     * @param b The second entry
+     * @return A negative number if a ranks below b, positive if above, 0 if equal
+     */
+    private static int compare(Map.Entry<String, int[]> a, Map.Entry<String, int[]> b) {
+        int byCount = Integer.compare(a.getValue()[0], b.getValue()[0]);
+        return byCount != 0 ? byCount : b.getKey().compareTo(a.getKey());
+    }
+}
@@ -0,0 +1,140 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utility class for rendering report fields without allocating per record.
+ * Strings are encoded to UTF-8 directly into a ByteBuffer, integers are written digit by
+ * digit, and the constant texts of the reports are encoded once.
+ */
+class Utf8 {
+
+    static final byte SEPARATOR = '-';
+    static final byte[] YES = "Sí".getBytes(StandardCharsets.UTF_8);
+    static final byte[] NO = "No".getBytes(StandardCharsets.UTF_8);
+    static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final byte[][] SEVERITIES = new byte[Severity.values().length][];
+
+    // Longest text of an int: the minus sign and ten digits
+    static final int MAX_INT_BYTES = 11;
+
+    static {
+        for (Severity severity : Severity.values()) {
+            SEVERITIES[severity.ordinal()] = severity.name().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Gets the pre-encoded name of a severity level.
+     *
+     * @param severity The severity level, may be null
+     * @return The UTF-8 bytes of the name, or of "null"
+     */
+    static byte[] severity(Severity severity) {
+        return severity == null ? "null".getBytes(StandardCharsets.UTF_8) : SEVERITIES[severity.ordinal()];
+    }
+
+    /**
+     * Gets the maximum number of UTF-8 bytes a string can take.
+     *
+     * @param text The string, may be null
+     * @return Three bytes per char, or the length of "null"
+     */
+    static int maxBytes(String text) {
+        return text == null ? 4 : text.length() * 3;
+    }
+
+    /**
+     * Encodes a string as UTF-8 into a buffer.
+     *
+     * @param buffer The buffer that receives the bytes
+     * @param text The string to encode, written as "null" when null
+     */
+    static void put(ByteBuffer buffer, CharSequence text) {
+        if (text == null) {
+            text = "null";
+        }
+        put(buffer, text, 0, text.length());
+    }
+
+    /**
+     * Encodes a range of chars as UTF-8 into a buffer.
+     *
+     * @param buffer The buffer that receives the bytes
+     * @param text The text that holds the chars
+     * @param start The index of the first char to encode
+     * @param end The index after the last char to encode
+     */
+    static void put(ByteBuffer buffer, CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates are replaced like String.getBytes does
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    /**
+     * Writes the decimal text of an integer into a buffer.
+     *
+     * @param buffer The buffer that receives the bytes
+     * @param value The integer to write
+     */
+    static void putInt(ByteBuffer buffer, int value) {
+        long remaining = value;
+        if (remaining < 0) {
+            buffer.put((byte) '-');
+            remaining = -remaining;
+        }
+
+        long divisor = 1;
+        while (divisor * 10 <= remaining) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + (remaining / divisor) % 10));
+        }
+    }
+
+    /**
+     * Writes the decimal text of an integer into an Appendable.
+     *
+     * @param out The destination of the text
+     * @param value The integer to write
+     * @throws IOException If the destination cannot be written
+     */
+    static void appendInt(Appendable out, int value) throws IOException {
+        long remaining = value;
+        if (remaining < 0) {
+            out.append('-');
+            remaining = -remaining;
+        }
+
+        long divisor = 1;
+        while (divisor * 10 <= remaining) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + (remaining / divisor) % 10));
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package ui;
 
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -8,11 +10,17 @@ import java.util.List;
 import java.util.Scanner;
 
 import model.Controller;
+import model.DuplicateMatch;
+import model.EquipmentSummary;
+import model.EscalationAlert;
+import model.ExportFormat;
 import model.Hardware;
+import exceptions.DuplicateReportException;
 import exceptions.InvalidSerialNumberException;
 import exceptions.InvalidSeverityException;
 import exceptions.InvalidVersionFormatException;
 import model.Report;
+import model.ReportExporter;
 import model.Severity;
 import model.Software;
 import model.Validator;
@@ -62,6 +70,7 @@ public class Executable {
 
         System.out.println("Gracias por utilizar el sistema. ¡Hasta pronto!");
         scanner.close();
+        controller.close();
     }
 
     /**
@@ -107,6 +116,8 @@ public class Executable {
             return;
         }
 
+        int previousAlerts = controller.getEscalationAlerts().size();
+
         try {
             // Common information for all reports
             System.out.print("ID del equipo: ");
@@ -124,6 +135,7 @@ public class Executable {
             LocalDate date = Validator.validateDate(dateStr);
 
             // Specific information based on report type
+            DuplicateMatch match;
             if (reportType == 1) {
                 // Hardware report
                 System.out.print("Tipo de componente: ");
@@ -139,7 +151,7 @@ public class Executable {
 
                 Hardware hardwareReport = new Hardware(idGadget, description, severity, date,
                         componentType, serialNumber, hasToReplace);
-                controller.addReport(hardwareReport);
+                match = controller.addReport(hardwareReport);
 
             } else {
                 // Software report
@@ -155,50 +167,68 @@ public class Executable {
 
                 Software softwareReport = new Software(idGadget, description, severity, date,
                         systemOperation, softwareName, version);
-                controller.addReport(softwareReport);
+                match = controller.addReport(softwareReport);
             }
 
-            System.out.println("Reporte registrado exitosamente.");
+            if (match == null) {
+                System.out.println("Reporte registrado exitosamente.");
+            } else if (match.isAdded()) {
+                System.out.println("Reporte registrado exitosamente y marcado como posible duplicado. " + match);
+            } else {
+                System.out.println("El reporte no se registró: se fusionó con el registrado. " + match);
+            }
+            showNewAlerts(previousAlerts);
 
         } catch (InvalidSeverityException | InvalidSerialNumberException |
-                 InvalidVersionFormatException | DateTimeParseException e) {
+                 InvalidVersionFormatException | DuplicateReportException | DateTimeParseException e) {
             System.out.println("Error al registrar el reporte: " + e.getMessage());
         }
     }
 
+    /**
+     * Displays the escalation alerts raised after a number of known alerts.
+     *
+     * @param previousAlerts The number of alerts there were before the last registration
+     */
+    private static void showNewAlerts(int previousAlerts) {
+        List<EscalationAlert> alerts = controller.getEscalationAlerts();
+        for (int i = previousAlerts; i < alerts.size(); i++) {
+            System.out.println("¡Alerta de escalamiento! " + alerts.get(i));
+        }
+    }
+
     /**
      * Handles the query of reports by equipment ID.
      */
     private static void queryReportsByEquipmentId() {
         System.out.println("\n----- CONSULTA DE REPORTES POR ID DE EQUIPO -----");
 
-        List<Report> allReports = controller.getListReports();
-        if (allReports.isEmpty()) {
+        List<EquipmentSummary> summaries = controller.getEquipmentSummaries();
+        if (summaries.isEmpty()) {
             System.out.println("No hay reportes registrados en el sistema.");
             return;
         }
 
         System.out.println("Reportes disponibles:");
-        List<String> equipmentIds = controller.getEquipmentIds();
-
-        for (String id : equipmentIds) {
-            System.out.println("ID de equipo: " + id);
-            for (Report report : allReports) {
-                if (report.getId_gadget().equals(id)) {
-                    System.out.println("  - Severidad: " + report.getSeverityType());
-                }
-            }
+        for (EquipmentSummary summary : summaries) {
+            System.out.println("ID de equipo: " + summary.getIdGadget());
+            System.out.println("  - Reportes: " + summary.getReportCount()
+                    + " (ALTO: " + summary.getCount(Severity.ALTO)
+                    + ", MEDIO: " + summary.getCount(Severity.MEDIO)
+                    + ", BAJO: " + summary.getCount(Severity.BAJO) + ")");
+            System.out.println("  - Último reporte: " + summary.getLastReportDate().format(dateFormatter)
+                    + ", componentes a cambiar: " + summary.getOpenReplacements());
         }
 
         System.out.print("\nIngrese el ID del equipo a consultar: ");
         String idGadget = scanner.nextLine();
 
-        List<Report> results = controller.searchReportsByid(idGadget);
+        List<Report> results = controller.getEquipmentHistory(idGadget);
 
         if (results.isEmpty()) {
             System.out.println("No se encontraron reportes para el ID de equipo indicado.");
         } else {
-            System.out.println("\nReportes encontrados:");
+            System.out.println("\nHistorial del equipo, del reporte más antiguo al más reciente:");
             displayReportsList(results);
         }
     }
@@ -276,18 +306,39 @@ public class Executable {
         System.out.println("Tipo de informe:");
         System.out.println("1. Hardware");
         System.out.println("2. Software");
+        System.out.println("3. Hardware (solo reportes nuevos desde el último informe incremental)");
+        System.out.println("4. Software (solo reportes nuevos desde el último informe incremental)");
         System.out.print("Seleccione una opción: ");
         int reportType = readOption();
 
+        if (reportType < 1 || reportType > 4) {
+            System.out.println("Opción inválida.");
+            return;
+        }
+
+        ReportExporter exporter = readExportFormat();
+        if (exporter == null) {
+            System.out.println("Formato inválido.");
+            return;
+        }
+
         try {
             String filename;
 
             if (reportType == 1) {
-                filename = controller.generateHardwareReport();
+                filename = controller.generateHardwareReport(exporter);
                 System.out.println("Informe de Hardware generado exitosamente: " + filename);
             } else if (reportType == 2) {
-                filename = controller.generateSoftwareReport();
+                filename = controller.generateSoftwareReport(exporter);
                 System.out.println("Informe de Software generado exitosamente: " + filename);
+            } else if (reportType == 3 || reportType == 4) {
+                filename = reportType == 3 ? controller.generateIncrementalHardwareReport(exporter)
+                        : controller.generateIncrementalSoftwareReport(exporter);
+                if (filename == null) {
+                    System.out.println("No hay reportes nuevos desde el último informe incremental.");
+                } else {
+                    System.out.println("Informe incremental generado exitosamente: " + filename);
+                }
             } else {
                 System.out.println("Opción inválida.");
             }
@@ -296,17 +347,47 @@ public class Executable {
         }
     }
 
+    /**
+     * Asks for the format of a report file.
+     *
+     * @return The exporter of the selected format, or null if the option is invalid
+     */
+    private static ReportExporter readExportFormat() {
+        System.out.println("Formato del informe:");
+        System.out.println("1. Texto");
+        System.out.println("2. CSV");
+        System.out.println("3. JSON Lines");
+        System.out.println("4. Binario columnar");
+        System.out.print("Seleccione una opción: ");
+        int format = readOption();
+
+        if (format < 1 || format > ExportFormat.values().length) {
+            return null;
+        }
+        return ExportFormat.values()[format - 1].createExporter();
+    }
+
     /**
      * Displays a list of reports in a formatted way.
      *
      * @param reports The list of reports to display
      */
     private static void displayReportsList(List<Report> reports) {
+        // Reports are rendered straight into the buffered console writer
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, System.out.charset()), false);
         int count = 1;
 
-        for (Report report : reports) {
-            System.out.println(count + ". " + report.getReportInfo());
-            count++;
+        try {
+            for (Report report : reports) {
+                out.print(count);
+                out.print(". ");
+                report.appendReportInfo(out);
+                out.println();
+                count++;
+            }
+        } catch (IOException e) {
+            // PrintWriter reports errors through checkError instead of throwing
         }
+        out.flush();
     }
 }
\ No newline at end of file
@@ -0,0 +1,296 @@
+package ui;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import exceptions.DuplicateReportException;
+import model.Controller;
+import model.IngestionPipeline;
+import model.Severity;
+import model.SyntheticReportGenerator;
+
+/**
+ * Command line load test for the Controller.
+ * Loads a synthetic dataset through the ingestion pipeline, then replays a mixed workload of
+ * queries and registrations from several threads and prints the throughput, the p50, p99 and
+ * p99.9 latencies of reads and writes, and the heap usage.
+ *
+ * <p>Options, all optional: --reports=N --operations=N --threads=N --write-ratio=R
+ * --equipment=N --zipf=S --seed=N --off-heap=true|false --dir=PATH. Without --dir a temporary directory is used.</p>
+ */
+public class LoadDriver {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int reports = Integer.parseInt(options.getOrDefault("reports", "20000"));
+        int operations = Integer.parseInt(options.getOrDefault("operations", "20000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+        double writeRatio = Double.parseDouble(options.getOrDefault("write-ratio", "0.01"));
+        int equipment = Integer.parseInt(options.getOrDefault("equipment", "2000"));
+        double zipf = Double.parseDouble(options.getOrDefault("zipf", "1.1"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        boolean offHeap = Boolean.parseBoolean(options.getOrDefault("off-heap", "false"));
+
+        Path directory = options.containsKey("dir") ? Path.of(options.get("dir")) : Files.createTempDirectory("carga");
+        Files.createDirectories(directory.resolve("data"));
+        Files.createDirectories(directory.resolve("reports"));
+        Controller controller = new Controller(directory.toString(), offHeap);
+
+        // Load phase
+        SyntheticReportGenerator generator = newGenerator(seed, equipment, zipf);
+        int initialCount = controller.getReportCount();
+        long loadStart = System.nanoTime();
+        IngestionPipeline pipeline = new IngestionPipeline(controller);
+        for (int i = 0; i < reports; i++) {
+            pipeline.submit(SyntheticReportGenerator.toFeedLine(generator.nextReport()));
+        }
+        pipeline.close();
+        long loadNanos = System.nanoTime() - loadStart;
+
+        System.gc();
+        long heapAfterLoad = usedHeap();
+        // Duplicates rejected by the controller are not counted as loaded
+        int loaded = controller.getReportCount() - initialCount;
+        System.out.printf("Carga: %d de %d reportes en %.2f s (%.0f reportes/s) en %s%n",
+                loaded, reports, loadNanos / 1e9, loaded / (loadNanos / 1e9), directory);
+        System.out.printf("Heap tras la carga: %.1f MB%n", heapAfterLoad / 1e6);
+
+        // Mixed workload phase
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<long[][]>> results = new ArrayList<>();
+        long runStart = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int share = operations / threads + (t < operations % threads ? 1 : 0);
+            SyntheticReportGenerator workerGenerator = newGenerator(seed + 1 + t, equipment, zipf);
+            SplittableRandom random = new SplittableRandom(seed + 1000 + t);
+            results.add(executor.submit(() -> runWorker(controller, workerGenerator, random, share, writeRatio)));
+        }
+
+        List<long[]> reads = new ArrayList<>();
+        List<long[]> writes = new ArrayList<>();
+        for (Future<long[][]> result : results) {
+            reads.add(result.get()[0]);
+            writes.add(result.get()[1]);
+        }
+        long runNanos = System.nanoTime() - runStart;
+        executor.shutdown();
+
+        System.out.printf("Carga mixta: %d operaciones en %.2f s con %d hilos (%.0f operaciones/s)%n",
+                operations, runNanos / 1e9, threads, operations / (runNanos / 1e9));
+        printLatencies("Lecturas", merge(reads));
+        printLatencies("Escrituras", merge(writes));
+        System.out.printf("Heap máximo durante la carga mixta: %.1f MB%n", peakHeap() / 1e6);
+        System.out.printf("Recolecciones de basura: %d (%d ms)%n", gcCount() - gcCountBefore, gcTime() - gcTimeBefore);
+        System.out.printf("Aciertos de la caché de consultas: %.1f%%%n", controller.getQueryCache().getHitRate() * 100);
+        controller.close();
+    }
+
+    /**
+     * Runs a share of the mixed workload, measuring the latency of every operation.
+     *
+     * @param controller The controller under test
+     * @param generator The generator of new reports and query parameters
+     * @param random The source of the choice of operation
+     * @param operations The number of operations to run
+     * @param writeRatio The share of operations that register a report
+     * @return The read latencies and the write latencies, in nanoseconds
+     */
+    private static long[][] runWorker(Controller controller, SyntheticReportGenerator generator,
+                                      SplittableRandom random, int operations, double writeRatio) {
+        long[] reads = new long[operations];
+        long[] writes = new long[operations];
+        int readCount = 0;
+        int writeCount = 0;
+
+        for (int i = 0; i < operations; i++) {
+            boolean write = random.nextDouble() < writeRatio;
+            long start = System.nanoTime();
+            if (write) {
+                try {
+                    controller.addReport(generator.nextReport());
+                } catch (DuplicateReportException e) {
+                    // A rejected duplicate is still a completed write request
+                }
+                writes[writeCount++] = System.nanoTime() - start;
+            } else {
+                runQuery(controller, generator, random.nextInt(10));
+                reads[readCount++] = System.nanoTime() - start;
+            }
+        }
+        return new long[][]{Arrays.copyOf(reads, readCount), Arrays.copyOf(writes, writeCount)};
+    }
+
+    /**
+     * Runs one query of the read mix: mostly lookups by equipment ID, then
+     * severity, date, Top-K and distinct count queries.
+     *
+     * @param controller The controller under test
+     * @param generator The generator of query parameters
+     * @param choice A number from 0 to 9 that selects the query
+     */
+    private static void runQuery(Controller controller, SyntheticReportGenerator generator, int choice) {
+        if (choice < 4) {
+            controller.searchReportsByid(generator.nextEquipmentId());
+        } else if (choice < 6) {
+            controller.searchBySeverityType(generator.nextSeverity().ordinal() + 1);
+        } else if (choice < 8) {
+            controller.searchSinceDeterminateDate(generator.nextDate());
+        } else if (choice == 8) {
+            LocalDate date = generator.nextDate();
+            controller.getTopEquipment(generator.nextSeverity(), date.getYear(), (date.getMonthValue() - 1) / 3 + 1, 10);
+        } else {
+            controller.estimateDistinctEquipment(Severity.ALTO);
+        }
+    }
+
+    /**
+     * Prints the count and percentiles of a set of latencies.
+     *
+     * @param label The name of the operations
+     * @param latencies The latencies in nanoseconds, sorted in place
+     */
+    private static void printLatencies(String label, long[] latencies) {
+        if (latencies.length == 0) {
+            System.out.println(label + ": sin operaciones");
+            return;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%s: %d operaciones, p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, máx %.3f ms%n", label,
+                latencies.length, percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6,
+                percentile(latencies, 0.999) / 1e6, latencies[latencies.length - 1] / 1e6);
+    }
+
+    /**
+     * Gets a percentile of sorted values using the nearest-rank method.
+     *
+     * @param sorted The sorted values
+     * @param fraction The percentile as a fraction, such as 0.99
+     * @return The value at the percentile
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Joins the latencies of every worker.
+     *
+     * @param parts The latencies of each worker
+     * @return A new array with every latency
+     */
+    private static long[] merge(List<long[]> parts) {
+        int total = 0;
+        for (long[] part : parts) {
+            total += part.length;
+        }
+        long[] merged = new long[total];
+        int position = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, merged, position, part.length);
+            position += part.length;
+        }
+        return merged;
+    }
+
+    /**
+     * Creates a generator with the settings of the load test.
+     *
+     * @param seed The seed of the generator
+     * @param equipment The number of distinct equipment IDs
+     * @param zipf The skew of the equipment IDs
+     * @return A new generator
+     */
+    private static SyntheticReportGenerator newGenerator(long seed, int equipment, double zipf) {
+        SyntheticReportGenerator generator = new SyntheticReportGenerator(seed, equipment);
+        generator.setZipfExponent(zipf);
+        return generator;
+    }
+
+    /**
+     * Parses options of the form --name=value.
+     *
+     * @param args The command line arguments
+     * @return The value of each option by name
+     */
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Opción inválida: " + arg + ". Use --nombre=valor.");
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Gets the bytes currently used by the heap.
+     *
+     * @return The used heap in bytes
+     */
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Gets the peak bytes used by the heap pools since their peaks were last reset.
+     *
+     * @return The sum of the peak usage of every heap pool
+     */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * Gets the number of garbage collections run so far.
+     *
+     * @return The total number of collections
+     */
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Gets the time spent in garbage collections so far.
+     *
+     * @return The total collection time in milliseconds
+     */
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, collector.getCollectionTime());
+        }
+        return time;
+    }
+}
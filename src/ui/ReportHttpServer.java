@@ -0,0 +1,532 @@
+package ui;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import exceptions.DuplicateReportException;
+import exceptions.ReportException;
+import model.Controller;
+import model.DuplicateMatch;
+import model.EscalationAlert;
+import model.ExportFormat;
+import model.Hardware;
+import model.Report;
+import model.ReportExporter;
+import model.ReportJson;
+import model.Severity;
+import model.Software;
+import model.Validator;
+
+/**
+ * Headless entry point for the Electronic Equipment Report Management System.
+ * Exposes the Controller operations as JSON endpoints over HTTP, handling every
+ * request on its own virtual thread so many local clients can query at once.
+ * The server only listens on the loopback address unless another address is given,
+ * since the endpoints that add reports and write files have no authentication.
+ * Only the exact paths below are served; any other path gets 404.
+ *
+ * <ul>
+ *     <li>POST /reports - registers a report from form parameters. A report that duplicates a registered
+ *     one gets 409 under the REJECT policy, 200 with the match under MERGE (it is not added) and 201 with
+ *     the match under FLAG; the match and the 409 error carry the ordinal of the registered report</li>
+ *     <li>GET /reports?id=ID - reports of an equipment</li>
+ *     <li>GET /reports/severity?level=ALTO|MEDIO|BAJO - reports of a severity level</li>
+ *     <li>GET /reports/since?date=YYYY/MM/DD - reports since a date</li>
+ *     <li>GET /equipment - IDs of every reported equipment</li>
+ *     <li>POST /export?type=hardware|software[&amp;format=TEXT|CSV|JSON_LINES|BINARY][&amp;incremental=true] -
+ *     generates a report file, optionally with only the reports added since the last incremental export</li>
+ *     <li>GET /analytics/top-equipment?severity=ALTO&amp;year=YYYY&amp;quarter=Q&amp;k=K - equipment
+ *     IDs with the most reports of a severity in a quarter</li>
+ *     <li>GET /analytics/top-components?k=K - components most often flagged for replacement</li>
+ *     <li>GET /analytics/alerts - alerts raised by the escalation rules</li>
+ * </ul>
+ */
+public class ReportHttpServer {
+
+    private static final int DEFAULT_PORT = 8080;
+
+    private final Controller controller;
+    private final HttpServer server;
+
+    /**
+     * Constructor for a ReportHttpServer that only accepts connections from the local machine.
+     *
+     * @param controller The controller that answers the requests
+     * @param port The local port to listen on
+     * @throws IOException If the port cannot be opened
+     */
+    public ReportHttpServer(Controller controller, int port) throws IOException {
+        this(controller, port, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Constructor for a ReportHttpServer that listens on a given address.
+     * Any address other than the loopback one exposes every endpoint to other hosts without authentication.
+     *
+     * @param controller The controller that answers the requests
+     * @param port The port to listen on
+     * @param bindAddress The address to listen on
+     * @throws IOException If the port cannot be opened
+     */
+    public ReportHttpServer(Controller controller, int port, InetAddress bindAddress) throws IOException {
+        this.controller = controller;
+        this.server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+
+        createContext("/reports", this::handleReports);
+        createContext("/reports/severity", this::handleSeverity);
+        createContext("/reports/since", this::handleSince);
+        createContext("/equipment", this::handleEquipment);
+        createContext("/export", this::handleExport);
+        createContext("/analytics/top-equipment", this::handleTopEquipment);
+        createContext("/analytics/top-components", this::handleTopComponents);
+        createContext("/analytics/alerts", this::handleAlerts);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        InetAddress bindAddress = args.length > 1 ? InetAddress.getByName(args[1]) : InetAddress.getLoopbackAddress();
+        Controller controller = new Controller();
+        ReportHttpServer reportServer = new ReportHttpServer(controller, port, bindAddress);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            reportServer.stop(1);
+            controller.close();
+        }));
+        reportServer.start();
+        System.out.println("Servidor de reportes escuchando en " + bindAddress.getHostAddress() + ":" + port);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server, waiting up to the given number of seconds for running exchanges.
+     *
+     * @param delaySeconds The maximum time to wait for running exchanges
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+    }
+
+    /**
+     * Registers a handler that only serves its exact path. Contexts match every path that starts
+     * with theirs, so a longer path with no context of its own gets 404 instead.
+     *
+     * @param path The path served by the handler
+     * @param handler The handler of the path
+     */
+    private void createContext(String path, HttpHandler handler) {
+        server.createContext(path, exchange -> {
+            if (!exchange.getRequestURI().getPath().equals(path)) {
+                sendError(exchange, 404, "Ruta no encontrada.");
+                return;
+            }
+            handler.handle(exchange);
+        });
+    }
+
+    /**
+     * Handles registration (POST) and queries by equipment ID (GET).
+     *
+     * @param exchange The HTTP exchange
+     * @throws IOException If the response cannot be written
+     */
+    private void handleReports(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestMethod().equals("POST")) {
+            registerReport(exchange);
+            return;
+        }
+        if (!exchange.getRequestMethod().equals("GET")) {
+            sendError(exchange, 405, "Método no permitido.");
+            return;
+        }
+
+        String idGadget = queryParameters(exchange).get("id");
+        if (idGadget == null) {
+            sendError(exchange, 400, "Debe indicar el parámetro id.");
+            return;
+        }
+        sendJson(exchange, 200, ReportJson.toJson(controller.searchReportsByid(idGadget)));
+    }
+
+    /**
+     * Handles queries by severity level.
+     *
+     * @param exchange The HTTP exchange
+     * @throws IOException If the response cannot be written
+     */
+    private void handleSeverity(HttpExchange exchange) throws IOException {
+        if (!isGet(exchange)) {
+            return;
+        }
+        String level = queryParameters(exchange).get("level");
+        if (level == null) {
+            sendError(exchange, 400, "Debe indicar el parámetro level.");
+            return;
+        }
+
+        try {
+            Severity severity = Validator.validateSeverity(level);
+            List<Report> results = controller.searchBySeverityType(severity.ordinal() + 1);
+            sendJson(exchange, 200, ReportJson.toJson(results));
+        } catch (ReportException e) {
+            sendError(exchange, 400, e.getMessage());
+        }
+    }
+
+    /**
+     * Handles queries of reports since a date.
+     *
+     * @param exchange The HTTP exchange
+     * @throws IOException If the response cannot be written
+     */
+    private void handleSince(HttpExchange exchange) throws IOException {
+        if (!isGet(exchange)) {
+            return;
+        }
+        String dateStr = queryParameters(exchange).get("date");
+        if (dateStr == null) {
+            sendError(exchange, 400, "Debe indicar el parámetro date.");
+            return;
+        }
+
+        try {
+            LocalDate date = Validator.validateDate(dateStr);
+            sendJson(exchange, 200, ReportJson.toJson(controller.searchSinceDeterminateDate(date)));
+        } catch (DateTimeParseException e) {
+            sendError(exchange, 400, "Formato de fecha inválido. Use el formato YYYY/MM/DD.");
+        }
+    }
+
+    /**
+     * Handles the listing of equipment IDs.
+     *
+     * @param exchange The HTTP exchange
+     * @throws IOException If the response cannot be written
+     */
+    private void handleEquipment(HttpExchange exchange) throws IOException {
+        if (!isGet(exchange)) {
+            return;
+        }
+        List<String> ids = controller.getEquipmentIds();
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            ReportJson.appendString(json, ids.get(i));
+        }
+        json.append(']');
+        sendJson(exchange, 200, json.toString());
+    }
+
+    /**
+     * Handles the generation of hardware or software report files.
+     * The file is null in the response when an incremental export has no new reports.
+     *
+     * @param exchange The HTTP exchange
+     * @throws IOException If the response cannot be written
+     */
+    private void handleExport(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            sendError(exchange, 405, "Método no permitido.");
+            return;
+        }
+
+        Map<String, String> params = queryParameters(exchange);
+        String type = params.get("type");
+        boolean incremental = "true".equalsIgnoreCase(params.get("incremental"));
+        ReportExporter exporter;
+        try {
+            exporter = ExportFormat.valueOf(params.getOrDefault("format", "TEXT").toUpperCase()).createExporter();
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, "Formato inválido. Use TEXT, CSV, JSON_LINES o BINARY.");
+            return;
+        }
+
+        String filename;
+        try {
+            if ("hardware".equalsIgnoreCase(type)) {
+                filename = incremental ? controller.generateIncrementalHardwareReport(exporter)
+                        : controller.generateHardwareReport(exporter);
+            } else if ("software".equalsIgnoreCase(type)) {
+                filename = incremental ? controller.generateIncrementalSoftwareReport(exporter)
+                        : controller.generateSoftwareReport(exporter);
+            } else {
+                sendError(exchange, 400, "Tipo de informe inválido. Use hardware o software.");
+                return;
+            }
+        } catch (IOException e) {
+            sendError(exchange, 500, "Error al generar el informe: " + e.getMessage());
+            return;
+        }
+
+        StringBuilder json = new StringBuilder("{\"file\":");
+        ReportJson.appendString(json, filename);
+        json.append('}');
+        sendJson(exchange, 200, json.toString());
+    }
+
+    /**
+     * Handles the query of the equipment IDs with the most reports of a severity in a quarter.
+     *
+     * @param exchange The HTTP exchange
+     * @throws IOException If the response cannot be written
+     */
+    private void handleTopEquipment(HttpExchange exchange) throws IOException {
+        if (!isGet(exchange)) {
+            return;
+        }
+        Map<String, String> params = queryParameters(exchange);
+        try {
+            Severity severity = Validator.validateSeverity(required(params, "severity"));
+            int year = Integer.parseInt(required(params, "year"));
+            int quarter = Integer.parseInt(required(params, "quarter"));
+            int k = Integer.parseInt(params.getOrDefault("k", "10"));
+            if (quarter < 1 || quarter > 4) {
+                sendError(exchange, 400, "El trimestre debe estar entre 1 y 4.");
+                return;
+            }
+            sendJson(exchange, 200, rankingJson(controller.getTopEquipment(severity, year, quarter, k)));
+        } catch (ReportException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "Los parámetros year, quarter y k deben ser números enteros.");
+        }
+    }
+
+    /**
+     * Handles the query of the components most often flagged for replacement.
+     *
+     * @param exchange The HTTP exchange
+     * @throws IOException If the response cannot be written
+     */
+    private void handleTopComponents(HttpExchange exchange) throws IOException {
+        if (!isGet(exchange)) {
+            return;
+        }
+        try {
+            int k = Integer.parseInt(queryParameters(exchange).getOrDefault("k", "10"));
+            sendJson(exchange, 200, rankingJson(controller.getTopComponentsToReplace(k)));
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "El parámetro k debe ser un número entero.");
+        }
+    }
+
+    /**
+     * Handles the query of the alerts raised by the escalation rules.
+     *
+     * @param exchange The HTTP exchange
+     * @throws IOException If the response cannot be written
+     */
+    private void handleAlerts(HttpExchange exchange) throws IOException {
+        if (!isGet(exchange)) {
+            return;
+        }
+        List<EscalationAlert> alerts = controller.getEscalationAlerts();
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < alerts.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(alerts.get(i).toJson());
+        }
+        json.append(']');
+        sendJson(exchange, 200, json.toString());
+    }
+
+    /**
+     * Converts a ranking of keys and counts into a JSON array.
+     *
+     * @param ranking The keys with their counts
+     * @return A JSON array of objects with the key and its count
+     */
+    private static String rankingJson(List<Map.Entry<String, Integer>> ranking) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < ranking.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"key\":");
+            ReportJson.appendString(json, ranking.get(i).getKey());
+            json.append(",\"count\":").append(ranking.get(i).getValue()).append('}');
+        }
+        json.append(']');
+        return json.toString();
+    }
+
+    /**
+     * Registers a hardware or software report from form parameters.
+     *
+     * @param exchange The HTTP exchange
+     * @throws IOException If the request cannot be read or the response cannot be written
+     */
+    private void registerReport(HttpExchange exchange) throws IOException {
+        Map<String, String> params = queryParameters(exchange);
+        try (InputStream body = exchange.getRequestBody()) {
+            params.putAll(parseParameters(new String(body.readAllBytes(), StandardCharsets.UTF_8)));
+        }
+
+        String type = params.get("type");
+        if (!"hardware".equalsIgnoreCase(type) && !"software".equalsIgnoreCase(type)) {
+            sendError(exchange, 400, "Tipo de reporte inválido. Use hardware o software.");
+            return;
+        }
+
+        try {
+            String idGadget = required(params, "id");
+            String description = required(params, "description");
+            Severity severity = Validator.validateSeverity(required(params, "severity"));
+            LocalDate date = Validator.validateDate(required(params, "date"));
+
+            Report report;
+            if ("hardware".equalsIgnoreCase(type)) {
+                int serialNumber = Validator.validateSerialNumber(required(params, "serialNumber"));
+                boolean hasToReplace = "S".equalsIgnoreCase(params.get("hasToReplace"))
+                        || "true".equalsIgnoreCase(params.get("hasToReplace"));
+                report = new Hardware(idGadget, description, severity, date,
+                        required(params, "componentType"), serialNumber, hasToReplace);
+            } else {
+                String version = required(params, "version");
+                Validator.validateVersionFormat(version);
+                report = new Software(idGadget, description, severity, date,
+                        required(params, "systemOperation"), required(params, "softwareName"), version);
+            }
+
+            DuplicateMatch match = controller.addReport(report);
+            if (match == null) {
+                StringBuilder json = new StringBuilder();
+                ReportJson.appendReport(json, report);
+                sendJson(exchange, 201, json.toString());
+            } else {
+                // A flagged duplicate was still created; a merged one was not
+                sendJson(exchange, match.isAdded() ? 201 : 200, match.toJson());
+            }
+
+        } catch (DuplicateReportException e) {
+            StringBuilder json = new StringBuilder("{\"error\":");
+            ReportJson.appendString(json, e.getMessage());
+            json.append(",\"originalOrdinal\":").append(e.getOriginalOrdinal()).append('}');
+            sendJson(exchange, 409, json.toString());
+        } catch (ReportException e) {
+            sendError(exchange, 400, "Error al registrar el reporte: " + e.getMessage());
+        } catch (DateTimeParseException e) {
+            sendError(exchange, 400, "Formato de fecha inválido. Use el formato YYYY/MM/DD.");
+        }
+    }
+
+    /**
+     * Checks that a read-only endpoint was called with GET, answering 405 otherwise.
+     *
+     * @param exchange The HTTP exchange
+     * @return True if the request is a GET, false if the 405 response was already sent
+     * @throws IOException If the response cannot be written
+     */
+    private static boolean isGet(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestMethod().equals("GET")) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", "GET");
+        sendError(exchange, 405, "Método no permitido.");
+        return false;
+    }
+
+    /**
+     * Gets a mandatory parameter.
+     *
+     * @param params The request parameters
+     * @param name The name of the parameter
+     * @return The value of the parameter
+     * @throws ReportException If the parameter is missing or empty
+     */
+    private static String required(Map<String, String> params, String name) throws ReportException {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new ReportException("Falta el parámetro " + name + ".");
+        }
+        return value;
+    }
+
+    /**
+     * Parses the query string of the request.
+     *
+     * @param exchange The HTTP exchange
+     * @return A mutable map with the decoded parameters
+     */
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        return parseParameters(exchange.getRequestURI().getRawQuery());
+    }
+
+    /**
+     * Parses URL-encoded parameters of the form name=value&amp;name=value.
+     *
+     * @param encoded The encoded parameters, may be null
+     * @return A mutable map with the decoded parameters
+     */
+    private static Map<String, String> parseParameters(String encoded) {
+        Map<String, String> params = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return params;
+        }
+
+        for (String pair : encoded.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    /**
+     * Sends an error message as a JSON object.
+     *
+     * @param exchange The HTTP exchange
+     * @param status The HTTP status code
+     * @param message The error message
+     * @throws IOException If the response cannot be written
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        ReportJson.appendString(json, message);
+        json.append('}');
+        sendJson(exchange, status, json.toString());
+    }
+
+    /**
+     * Sends a JSON response and closes the exchange.
+     *
+     * @param exchange The HTTP exchange
+     * @param status The HTTP status code
+     * @param json The JSON body
+     * @throws IOException If the response cannot be written
+     */
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
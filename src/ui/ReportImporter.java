@@ -0,0 +1,72 @@
+package ui;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.Controller;
+import model.IngestionPipeline;
+import model.StageStats;
+
+/**
+ * Command line entry point that imports report feeds through the ingestion pipeline.
+ * Every file given as argument is read on its own virtual thread; see
+ * {@link IngestionPipeline} for the line format.
+ */
+public class ReportImporter {
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length == 0) {
+            System.out.println("Uso: java ui.ReportImporter <archivo> [<archivo> ...]");
+            return;
+        }
+
+        Controller controller = new Controller();
+        IngestionPipeline pipeline = new IngestionPipeline(controller);
+        List<Thread> readers = new ArrayList<>();
+
+        for (String file : args) {
+            readers.add(Thread.ofVirtual().start(() -> readFeed(Path.of(file), pipeline)));
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        pipeline.close();
+        controller.close();
+
+        System.out.println("Importación finalizada.");
+        for (StageStats stats : pipeline.getStageStats()) {
+            System.out.println("  " + stats);
+        }
+        for (String rejected : pipeline.getRejectedLines()) {
+            System.out.println("  Rechazada - " + rejected);
+        }
+    }
+
+    /**
+     * Submits every non-empty line of a feed file to the pipeline.
+     *
+     * @param file The feed file
+     * @param pipeline The pipeline that receives the lines
+     */
+    private static void readFeed(Path file, IngestionPipeline pipeline) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!line.isBlank()) {
+                    pipeline.submit(file.toString(), lineNumber, line);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error al leer " + file + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Quick consistency checks of the binary formats and data structures of the model.
+ * The checks live in the test source root, outside the shipped sources, and share the model
+ * package to reach its package-private classes. They are compiled together with the
+ * sources and run from the command line with {@code java model.SelfCheck}. Each check encodes or
+ * builds a small value, reads it back and compares the result, and the first failure
+ * ends the run with an error.
+ */
+class SelfCheck {
+
+    public static void main(String[] args) throws Exception {
+        checkIndexFile();
+        checkDuplicateFingerprints();
+        checkHyperLogLogMerge();
+        checkReportCodec();
+        System.out.println("Todas las comprobaciones pasaron.");
+    }
+
+    /**
+     * Checks that the index file reads back what was written, and that it is ignored
+     * for another stamp or for fewer reports than it indexes.
+     *
+     * @throws Exception If the temporary file cannot be written or read
+     */
+    private static void checkIndexFile() throws Exception {
+        IndexFile index = new IndexFile();
+        index.indexById = new LinkedHashMap<>();
+        index.indexBySeverity = new EnumMap<>(Severity.class);
+        index.indexByDate = new TreeMap<>();
+        index.equipmentCountsByQuarter = new HashMap<>();
+        index.componentsToReplace = new TopKCounter();
+
+        index.indexById.put("PC-1", new OrdinalList(new int[]{0, 2}));
+        index.indexById.put("PC-ñ", new OrdinalList(new int[]{1}));
+        index.indexBySeverity.put(Severity.ALTO, new OrdinalList(new int[]{0, 1, 2}));
+        index.indexByDate.put(LocalDate.of(2025, 3, 1), new OrdinalList(new int[]{0, 1}));
+        index.indexByDate.put(LocalDate.of(2025, 4, 1), new OrdinalList(new int[]{2}));
+        Map<Severity, TopKCounter> quarter = new EnumMap<>(Severity.class);
+        quarter.put(Severity.ALTO, new TopKCounter());
+        quarter.get(Severity.ALTO).add("PC-1", 2);
+        index.equipmentCountsByQuarter.put("2025-Q1", quarter);
+        index.componentsToReplace.add("CPU", 3);
+        index.fingerprints = new long[]{1, 2, 3, -4, 5, 6, 7, Long.MIN_VALUE, Long.MAX_VALUE};
+
+        Path file = Files.createTempFile("indices", ".idx");
+        try {
+            Files.write(file, IndexFile.encode(42, 3, index));
+            IndexFile read = IndexFile.read(file, 42, 5);
+            check(read != null && read.reportCount == 3, "el archivo de índices se lee con su número de reportes");
+            check(describe(read).equals(describe(index)), "el archivo de índices conserva los índices");
+            check(IndexFile.read(file, 43, 5) == null, "el archivo de índices se ignora con otro sello");
+            check(IndexFile.read(file, 42, 2) == null, "el archivo de índices se ignora si indexa más reportes");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Checks that the duplicate fingerprints find exact and near duplicates, do not depend on
+     * the default locale, and give the same duplicates when loaded from saved values or indexed
+     * again after a removal.
+     */
+    private static void checkDuplicateFingerprints() {
+        LocalDate date = LocalDate.of(2025, 5, 20);
+        Report original = new Software("PC-1", "La pantalla se congela al abrir el  reporte MENSUAL de ventas", Severity.MEDIO, date,
+                "Windows", "Office", "1.2.3");
+        Report exact = new Software("PC-1", " la pantalla se congela al abrir el reporte mensual de ventas ", Severity.MEDIO, date,
+                "Windows", "Office", "1.2.3");
+        Report near = new Software("PC-1", "La pantalla se congela al abrir el reporte mensual de ventas.", Severity.MEDIO, date,
+                "Windows", "Office", "1.2.4");
+        Report other = new Software("PC-2", "La pantalla se congela al abrir el reporte mensual de ventas", Severity.MEDIO, date,
+                "Windows", "Office", "1.2.3");
+
+        Locale defaultLocale = Locale.getDefault();
+        long[] turkish;
+        try {
+            Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+            turkish = DuplicateDetector.fingerprints(original);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+        check(Arrays.equals(turkish, DuplicateDetector.fingerprints(original)),
+                "las huellas no dependen de la configuración regional");
+
+        DuplicateDetector detector = new DuplicateDetector(DuplicateDetector.DEFAULT_MAX_DISTANCE);
+        detector.add(DuplicateDetector.fingerprints(original));
+        check(detector.findExact(DuplicateDetector.fingerprints(exact)) == 0, "se detecta el duplicado exacto");
+        check(detector.findExact(DuplicateDetector.fingerprints(near)) < 0
+                && detector.findNear(DuplicateDetector.fingerprints(near)) == 0, "se detecta el duplicado similar");
+        check(detector.findNear(DuplicateDetector.fingerprints(other)) < 0, "otro equipo no es duplicado");
+
+        detector.add(DuplicateDetector.fingerprints(other));
+        detector.add(DuplicateDetector.fingerprints(exact));
+        OrdinalList duplicates = new OrdinalList();
+        OrdinalList originals = new OrdinalList();
+        DuplicateDetector loaded = new DuplicateDetector(DuplicateDetector.DEFAULT_MAX_DISTANCE);
+        loaded.load(detector.fingerprintArray(), 3, duplicates, originals);
+        check(describe(duplicates).equals("[2]") && describe(originals).equals("[0]") && loaded.isExactPair(2, 0),
+                "las huellas guardadas dan los mismos duplicados");
+
+        duplicates = new OrdinalList();
+        originals = new OrdinalList();
+        loaded.remove(0);
+        loaded.reindex(duplicates, originals);
+        check(duplicates.size() == 0 && loaded.findExact(DuplicateDetector.fingerprints(original)) == 1,
+                "las huellas se reindexan tras eliminar un reporte");
+    }
+
+    /**
+     * Checks that merging two sketches gives the same sketch as adding every value to one,
+     * so overlapping values are only counted once, and that sketches of another precision
+     * are not merged.
+     */
+    private static void checkHyperLogLogMerge() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        HyperLogLog both = new HyperLogLog();
+        for (int i = 0; i < 20_000; i++) {
+            String id = "PC-" + i;
+            if (i < 12_000) {
+                first.add(id);
+            }
+            if (i >= 8_000) {
+                second.add(id);
+            }
+            both.add(id);
+        }
+
+        HyperLogLog merged = HyperLogLog.union(Arrays.asList(first, second));
+        check(merged.estimate() == both.estimate(), "la unión de dos sketches estima lo mismo que un solo sketch");
+        check(Math.abs(merged.estimate() - 20_000) < 20_000 * 0.05, "la unión cuenta una vez los valores comunes");
+        first.merge(second);
+        check(first.estimate() == both.estimate(), "combinar un sketch en otro da la unión");
+
+        boolean refused;
+        try {
+            first.merge(new HyperLogLog(HyperLogLog.DEFAULT_PRECISION - 1));
+            refused = false;
+        } catch (IllegalArgumentException e) {
+            refused = true;
+        }
+        check(refused, "no se combinan sketches de distinta precisión");
+    }
+
+    /**
+     * Checks that reports read back from their record and from the off-heap store have the
+     * same fields, including text outside ASCII and missing values, and that records are copied
+     * between stores without changing them.
+     */
+    private static void checkReportCodec() {
+        List<Report> reports = List.of(
+                new Hardware("PC-ñ", "Pantalla rota — sin imagen 🖥", Severity.ALTO, LocalDate.of(2025, 1, 31), "Monitor", 123456, true),
+                new Software("SRV-2", "El servicio no inicia", Severity.BAJO, LocalDate.of(1999, 12, 31), "Linux", "nginx", "1.25"),
+                new Hardware("PC-3", null, null, null, null, -1, false),
+                new Software("PC-4", "", Severity.MEDIO, LocalDate.of(2025, 6, 1), null, "Office", null));
+
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        boolean sameFields = true;
+        for (Report report : reports) {
+            buffer.clear();
+            int length = ReportCodec.put(report, buffer);
+            sameFields &= length == buffer.position() && length <= ReportCodec.maxBytes(report)
+                    && describe(ReportCodec.get(buffer, 0, buffer, ReportCodec.FIXED_BYTES)).equals(describe(report));
+        }
+        check(sameFields, "el registro de un reporte conserva todos sus campos");
+
+        OffHeapReportStore store = new OffHeapReportStore(reports);
+        check(describe(store).equals(describe(reports)), "el almacén fuera del heap devuelve los reportes guardados");
+
+        OffHeapReportStore copy = new OffHeapReportStore();
+        boolean sameLengths = true;
+        for (int i = 0; i < store.size(); i++) {
+            buffer.clear();
+            store.getRecord(i, buffer);
+            sameLengths &= buffer.position() == store.recordLength(i);
+            copy.addRecord(buffer, 0, buffer.position());
+        }
+        check(sameLengths && describe(copy).equals(describe(reports)), "los registros se copian entre almacenes sin cambios");
+
+        copy.set(1, reports.get(0));
+        copy.remove(0);
+        check(describe(copy).equals(describe(List.of(reports.get(0), reports.get(2), reports.get(3)))),
+                "el almacén reemplaza y elimina reportes");
+    }
+
+    /**
+     * Describes every field of a list of reports as text, so two lists can be compared.
+     *
+     * @param reports The reports
+     * @return A description of every report
+     */
+    private static String describe(List<Report> reports) {
+        StringBuilder text = new StringBuilder();
+        for (Report report : reports) {
+            text.append(describe(report)).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Describes every field of a report as text.
+     *
+     * @param report The report
+     * @return The type and fields of the report
+     */
+    private static String describe(Report report) {
+        String fields = report.getId_gadget() + "|" + report.getDescription() + "|" + report.getSeverityType()
+                + "|" + report.getDate_report();
+        if (report instanceof Hardware) {
+            Hardware hardware = (Hardware) report;
+            return "Hardware|" + fields + "|" + hardware.getComponent_type() + "|" + hardware.getSerialNumber()
+                    + "|" + hardware.isHasToReplace();
+        }
+        Software software = (Software) report;
+        return "Software|" + fields + "|" + software.getSystemOperation() + "|" + software.getSoftwareName()
+                + "|" + software.getVersion();
+    }
+
+    /**
+     * Describes the contents of a set of indexes as text, so two sets can be compared.
+     *
+     * @param index The indexes
+     * @return A description of every index
+     */
+    private static String describe(IndexFile index) {
+        StringBuilder text = new StringBuilder();
+        index.indexById.forEach((key, ordinals) -> text.append(key).append(describe(ordinals)));
+        for (Severity severity : Severity.values()) {
+            OrdinalList ordinals = index.indexBySeverity.get(severity);
+            text.append(severity).append(ordinals == null ? "[]" : describe(ordinals));
+        }
+        index.indexByDate.forEach((date, ordinals) -> text.append(date).append(describe(ordinals)));
+        index.equipmentCountsByQuarter.forEach((key, counters) -> counters.forEach(
+                (severity, counter) -> text.append(key).append(severity).append(counter.top(counter.size()))));
+        text.append(index.componentsToReplace.top(index.componentsToReplace.size()));
+        return text.append(Arrays.toString(index.fingerprints)).toString();
+    }
+
+    /**
+     * Describes a list of ordinals as text.
+     *
+     * @param ordinals The ordinals
+     * @return The ordinals in brackets
+     */
+    private static String describe(OrdinalList ordinals) {
+        return Arrays.toString(ordinals.toArray());
+    }
+
+    /**
+     * Fails the run if a condition does not hold.
+     *
+     * @param condition The condition to check
+     * @param description What the condition checks
+     */
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new IllegalStateException("Falló la comprobación: " + description);
+        }
+        System.out.println("OK: " + description);
+    }
+}